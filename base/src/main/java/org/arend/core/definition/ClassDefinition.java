@@ -12,21 +12,25 @@ import org.arend.ext.core.definition.CoreClassDefinition;
 import org.arend.ext.core.definition.CoreClassField;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.naming.reference.TCDefReferable;
+import org.arend.util.CollectionCompactor;
 import org.arend.util.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ClassDefinition extends Definition implements CoreClassDefinition {
-  private final Set<ClassDefinition> mySuperClasses = new LinkedHashSet<>();
-  private final LinkedHashSet<ClassField> myFields = new LinkedHashSet<>();
+  private static final AtomicInteger SUPER_CLASSES_VERSION = new AtomicInteger();
+
+  private Set<ClassDefinition> mySuperClasses = new LinkedHashSet<>();
+  private Set<ClassField> myFields = new LinkedHashSet<>();
   private final List<ClassField> myPersonalFields = new ArrayList<>();
-  private final Map<ClassField, AbsExpression> myImplemented = new HashMap<>();
-  private final Map<ClassField, AbsExpression> myDefaults = new HashMap<>();
-  private final Map<ClassField, Set<ClassField>> myDefaultDependencies = new HashMap<>();
-  private final Map<ClassField, Set<ClassField>> myDefaultImplDependencies = new HashMap<>();
-  private final Map<ClassField, PiExpression> myOverridden = new HashMap<>();
+  private Map<ClassField, AbsExpression> myImplemented = new HashMap<>();
+  private Map<ClassField, AbsExpression> myDefaults = new HashMap<>();
+  private Map<ClassField, Set<ClassField>> myDefaultDependencies = new HashMap<>();
+  private Map<ClassField, Set<ClassField>> myDefaultImplDependencies = new HashMap<>();
+  private Map<ClassField, PiExpression> myOverridden = new HashMap<>();
   private ClassField myCoercingField;
   private Sort mySort = Sort.PROP;
   private boolean myRecord = false;
@@ -35,6 +39,9 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   private Set<ClassField> myTypeClassParameters = Collections.emptySet();
   private final ParametersLevels<ParametersLevel> myParametersLevels = new ParametersLevels<>();
   private FunctionDefinition mySquasher;
+  private volatile SuperClassesCache mySuperClassesCache;
+  private volatile ClassField[] myFieldArray;
+  private volatile Map<ClassField, Integer> myFieldIndices;
 
   public ClassDefinition(TCDefReferable referable) {
     super(referable, TypeCheckingStatus.NEEDS_TYPE_CHECKING);
@@ -196,6 +203,12 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
       if (!visited.add(subClass)) {
         continue;
       }
+      if (subClass instanceof ClassDefinition && classDef instanceof ClassDefinition) {
+        if (((ClassDefinition) subClass).getAllSuperClasses().contains(classDef)) {
+          return true;
+        }
+        continue;
+      }
       if (subClass == classDef) {
         return true;
       }
@@ -204,9 +217,54 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
     return false;
   }
 
+  private static class SuperClassesCache {
+    final int version;
+    final Set<ClassDefinition> superClasses;
+
+    SuperClassesCache(int version, Set<ClassDefinition> superClasses) {
+      this.version = version;
+      this.superClasses = superClasses;
+    }
+  }
+
+  /**
+   * @return the set of all (transitive) super classes of this class including the class itself.
+   *         The cached set is recomputed after super classes of a class with a computed cache change since this class might depend on it.
+   */
+  private Set<ClassDefinition> getAllSuperClasses() {
+    int version = SUPER_CLASSES_VERSION.get();
+    SuperClassesCache cache = mySuperClassesCache;
+    if (cache == null || cache.version != version) {
+      Set<ClassDefinition> superClasses = new HashSet<>();
+      superClasses.add(this);
+      for (ClassDefinition superClass : mySuperClasses) {
+        superClasses.addAll(superClass.getAllSuperClasses());
+      }
+      cache = new SuperClassesCache(version, superClasses);
+      mySuperClassesCache = cache;
+    }
+    return cache.superClasses;
+  }
+
+  /**
+   * Invalidates cached super classes.
+   * Caches of other classes can contain super classes of this class only if its own cache was computed.
+   * Thus, if it was not, caches of other classes remain valid.
+   * This is the usual case since super classes are added when a class is typechecked or loaded.
+   */
+  private void superClassesChanged() {
+    if (mySuperClassesCache != null) {
+      mySuperClassesCache = null;
+      SUPER_CLASSES_VERSION.incrementAndGet();
+    }
+  }
+
   @Override
   public boolean isSubClassOf(@NotNull CoreClassDefinition classDefinition) {
     if (this.equals(classDefinition)) return true;
+    if (classDefinition instanceof ClassDefinition) {
+      return getAllSuperClasses().contains(classDefinition);
+    }
     ArrayDeque<CoreClassDefinition> classDefs = new ArrayDeque<>(mySuperClasses);
     return isSubClassOf(classDefs, classDefinition);
   }
@@ -218,7 +276,11 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public void addSuperClass(ClassDefinition superClass) {
+    if (!(mySuperClasses instanceof LinkedHashSet)) {
+      mySuperClasses = new LinkedHashSet<>(mySuperClasses);
+    }
     mySuperClasses.add(superClass);
+    superClassesChanged();
   }
 
   @NotNull
@@ -233,12 +295,68 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
     return myPersonalFields;
   }
 
+  public int getNumberOfFields() {
+    return myFields.size();
+  }
+
+  /**
+   * @return fields of this class in the same order as {@link #getFields}.
+   */
+  public ClassField[] getFieldArray() {
+    ClassField[] result = myFieldArray;
+    if (result == null) {
+      result = myFields.toArray(new ClassField[0]);
+      for (int i = 0; i < result.length; i++) {
+        if (result[i].getParentClass() == this) {
+          result[i].myIndexHint = i;
+        }
+      }
+      myFieldArray = result;
+    }
+    return result;
+  }
+
+  /**
+   * Fields of a class usually have the same indices in its first superclass,
+   * so the index of a field is looked up by its index in the parent class first.
+   *
+   * @return the index of a field in {@link #getFieldArray} or -1 if it is not a field of this class.
+   */
+  public int getFieldIndex(ClassField field) {
+    ClassField[] fields = getFieldArray();
+    int index = field.myIndexHint;
+    if (index < 0 && field.getParentClass() != this) {
+      field.getParentClass().getFieldArray();
+      index = field.myIndexHint;
+    }
+    if (index >= 0 && index < fields.length && fields[index] == field) {
+      return index;
+    }
+
+    Map<ClassField, Integer> indices = myFieldIndices;
+    if (indices == null) {
+      indices = new HashMap<>();
+      for (int i = 0; i < fields.length; i++) {
+        indices.put(fields[i], i);
+      }
+      myFieldIndices = indices;
+    }
+    Integer result = indices.get(field);
+    return result == null ? -1 : result;
+  }
+
+  private void fieldsChanged() {
+    myFieldArray = null;
+    myFieldIndices = null;
+  }
+
   public int getNumberOfNotImplementedFields() {
     return myFields.size() - myImplemented.size();
   }
 
   public void addField(ClassField field) {
-    myFields.add(field);
+    mutableFields().add(field);
+    fieldsChanged();
   }
 
   public void addPersonalField(ClassField field) {
@@ -246,7 +364,19 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public void addFields(Collection<? extends ClassField> fields) {
-    myFields.addAll(fields);
+    mutableFields().addAll(fields);
+    fieldsChanged();
+  }
+
+  private Set<ClassField> mutableFields() {
+    if (!(myFields instanceof LinkedHashSet)) {
+      myFields = new LinkedHashSet<>(myFields);
+    }
+    return myFields;
+  }
+
+  private static <K, V> Map<K, V> mutableMap(Map<K, V> map) {
+    return map instanceof HashMap ? map : new HashMap<>(map);
   }
 
   @Override
@@ -270,6 +400,7 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public AbsExpression implementField(ClassField field, AbsExpression impl) {
+    myImplemented = mutableMap(myImplemented);
     return myImplemented.putIfAbsent(field, impl);
   }
 
@@ -282,10 +413,12 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public AbsExpression addDefault(ClassField field, AbsExpression impl) {
+    myDefaults = mutableMap(myDefaults);
     return myDefaults.put(field, impl);
   }
 
   public AbsExpression addDefaultIfAbsent(ClassField field, AbsExpression impl) {
+    myDefaults = mutableMap(myDefaults);
     return myDefaults.putIfAbsent(field, impl);
   }
 
@@ -294,11 +427,17 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public void addDefaultDependencies(ClassField field, Set<ClassField> dependencies) {
-    myDefaultDependencies.computeIfAbsent(field, k -> new HashSet<>()).addAll(dependencies);
+    myDefaultDependencies = mutableMap(myDefaultDependencies);
+    mutableDependencies(myDefaultDependencies, field).addAll(dependencies);
   }
 
   public void addDefaultDependency(ClassField field, ClassField dependency) {
-    myDefaultDependencies.computeIfAbsent(field, k -> new HashSet<>()).add(dependency);
+    myDefaultDependencies = mutableMap(myDefaultDependencies);
+    mutableDependencies(myDefaultDependencies, field).add(dependency);
+  }
+
+  private static Set<ClassField> mutableDependencies(Map<ClassField, Set<ClassField>> map, ClassField field) {
+    return map.compute(field, (k, set) -> set == null ? new HashSet<>() : set instanceof HashSet ? set : new HashSet<>(set));
   }
 
   public Map<ClassField, Set<ClassField>> getDefaultImplDependencies() {
@@ -306,14 +445,18 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public void addDefaultImplDependencies(ClassField field, Set<ClassField> dependencies) {
-    myDefaultImplDependencies.computeIfAbsent(field, k -> new HashSet<>()).addAll(dependencies);
+    myDefaultImplDependencies = mutableMap(myDefaultImplDependencies);
+    mutableDependencies(myDefaultImplDependencies, field).addAll(dependencies);
   }
 
   public void addDefaultImplDependency(ClassField field, ClassField dependency) {
-    myDefaultImplDependencies.computeIfAbsent(field, k -> new HashSet<>()).add(dependency);
+    myDefaultImplDependencies = mutableMap(myDefaultImplDependencies);
+    mutableDependencies(myDefaultImplDependencies, field).add(dependency);
   }
 
   public void removeDefault(ClassField field) {
+    myDefaults = mutableMap(myDefaults);
+    myDefaultDependencies = mutableMap(myDefaultDependencies);
     myDefaults.remove(field);
     myDefaultDependencies.remove(field);
   }
@@ -369,6 +512,7 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public PiExpression overrideField(ClassField field, PiExpression type) {
+    myOverridden = mutableMap(myOverridden);
     return myOverridden.putIfAbsent(field, type);
   }
 
@@ -407,14 +551,40 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public void clear() {
-    mySuperClasses.clear();
-    myFields.clear();
+    mySuperClasses = new LinkedHashSet<>();
+    superClassesChanged();
+    myFields = new LinkedHashSet<>();
+    fieldsChanged();
     myPersonalFields.clear();
-    myImplemented.clear();
-    myOverridden.clear();
+    myImplemented = new HashMap<>();
+    myOverridden = new HashMap<>();
     myCoercingField = null;
   }
 
+  /**
+   * Replaces collections of this class with compact ones.
+   * Collections are copied back if the class is modified afterwards.
+   */
+  public void compact(CollectionCompactor compactor) {
+    mySuperClasses = compactor.orderedSet(mySuperClasses);
+    myFields = compactor.orderedSet(myFields);
+    compactor.list(myPersonalFields);
+    myImplemented = compactor.map(myImplemented);
+    myDefaults = compactor.map(myDefaults);
+    myDefaultDependencies = compactDependencies(compactor, myDefaultDependencies);
+    myDefaultImplDependencies = compactDependencies(compactor, myDefaultImplDependencies);
+    myOverridden = compactor.map(myOverridden);
+    myGoodThisFields = compactor.set(myGoodThisFields);
+    myTypeClassParameters = compactor.set(myTypeClassParameters);
+  }
+
+  private static Map<ClassField, Set<ClassField>> compactDependencies(CollectionCompactor compactor, Map<ClassField, Set<ClassField>> map) {
+    if (map instanceof HashMap) {
+      map.replaceAll((field, dependencies) -> compactor.set(dependencies));
+    }
+    return compactor.map(map);
+  }
+
   @Override
   public void fill() {
     for (ClassField field : myPersonalFields) {
@@ -22,6 +22,7 @@ public class ClassField extends Definition implements CoreClassField {
   private int myNumberOfParameters;
   private boolean myHideable;
   private boolean myCovariant;
+  volatile int myIndexHint = -1;
 
   public ClassField(TCFieldReferable referable, ClassDefinition parentClass) {
     super(referable, TypeCheckingStatus.NEEDS_TYPE_CHECKING);
@@ -46,6 +47,13 @@ public class ClassField extends Definition implements CoreClassField {
     return myParentClass;
   }
 
+  /**
+   * @return the index of this field in its parent class.
+   */
+  public int getIndex() {
+    return myParentClass.getFieldIndex(this);
+  }
+
   public void setType(PiExpression type) {
     myType = type;
   }
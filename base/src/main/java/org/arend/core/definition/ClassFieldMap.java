@@ -0,0 +1,296 @@
+package org.arend.core.definition;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * A map from fields of a class that stores values in an array indexed by {@link ClassDefinition#getFieldIndex}.
+ * Entries are iterated in the order of fields of the class.
+ * Keys that are not fields of the class are stored in a hash map and iterated after other entries.
+ * If such a key is added to the class later, it is moved to the array on the next access.
+ */
+public class ClassFieldMap<V> extends AbstractMap<ClassField, V> {
+  private static final Object[] EMPTY_ARRAY = new Object[0];
+  private static final Object NULL_VALUE = new Object();
+
+  private final ClassDefinition myClass;
+  private Object[] myValues = EMPTY_ARRAY;
+  private int mySize;
+  private Map<ClassField, V> myOtherValues;
+
+  public ClassFieldMap(ClassDefinition classDef) {
+    myClass = classDef;
+  }
+
+  public ClassFieldMap(ClassDefinition classDef, Map<? extends ClassField, ? extends V> map) {
+    myClass = classDef;
+    putAll(map);
+  }
+
+  public ClassDefinition getClassDefinition() {
+    return myClass;
+  }
+
+  /**
+   * @return true if a given map stores values by indices of fields of a given class.
+   */
+  public static boolean isIndexedBy(Map<ClassField, ?> map, ClassDefinition classDef) {
+    return map instanceof ClassFieldMap && ((ClassFieldMap<?>) map).myClass == classDef;
+  }
+
+  /**
+   * Moves keys that got indices since they were added.
+   */
+  private void moveIndexedKeys() {
+    if (myOtherValues == null) {
+      return;
+    }
+    for (Iterator<Entry<ClassField, V>> iterator = myOtherValues.entrySet().iterator(); iterator.hasNext(); ) {
+      Entry<ClassField, V> entry = iterator.next();
+      int index = myClass.getFieldIndex(entry.getKey());
+      if (index >= 0) {
+        iterator.remove();
+        putAt(index, entry.getValue());
+      }
+    }
+    if (myOtherValues.isEmpty()) {
+      myOtherValues = null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> V unmask(Object value) {
+    return value == NULL_VALUE ? null : (V) value;
+  }
+
+  /**
+   * @return the value of the field with a given index or null if there is no such value.
+   */
+  public V getAt(int index) {
+    return index >= 0 && index < myValues.length ? unmask(myValues[index]) : null;
+  }
+
+  /**
+   * @return true if the map contains the field with a given index.
+   */
+  public boolean containsAt(int index) {
+    return index >= 0 && index < myValues.length && myValues[index] != null;
+  }
+
+  /**
+   * Removes trailing empty slots of the array.
+   */
+  public void trimToSize() {
+    int length = myValues.length;
+    while (length > 0 && myValues[length - 1] == null) {
+      length--;
+    }
+    if (length < myValues.length) {
+      myValues = length == 0 ? EMPTY_ARRAY : Arrays.copyOf(myValues, length);
+    }
+  }
+
+  @Override
+  public V get(Object key) {
+    if (!(key instanceof ClassField)) {
+      return null;
+    }
+    moveIndexedKeys();
+    int index = myClass.getFieldIndex((ClassField) key);
+    if (index >= 0) {
+      return getAt(index);
+    }
+    return myOtherValues == null ? null : myOtherValues.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    if (!(key instanceof ClassField)) {
+      return false;
+    }
+    moveIndexedKeys();
+    int index = myClass.getFieldIndex((ClassField) key);
+    if (index >= 0) {
+      return containsAt(index);
+    }
+    return myOtherValues != null && myOtherValues.containsKey(key);
+  }
+
+  @Override
+  public V put(ClassField key, V value) {
+    moveIndexedKeys();
+    int index = myClass.getFieldIndex(key);
+    if (index < 0) {
+      if (myOtherValues == null) {
+        myOtherValues = new HashMap<>();
+      }
+      return myOtherValues.put(key, value);
+    }
+    return putAt(index, value);
+  }
+
+  private V putAt(int index, V value) {
+    if (index >= myValues.length) {
+      myValues = Arrays.copyOf(myValues, Math.max(index + 1, myClass.getNumberOfFields()));
+    }
+    Object old = myValues[index];
+    myValues[index] = value == null ? NULL_VALUE : value;
+    if (old == null) {
+      mySize++;
+    }
+    return unmask(old);
+  }
+
+  private V removeAt(int index) {
+    Object old = myValues[index];
+    if (old != null) {
+      myValues[index] = null;
+      mySize--;
+    }
+    return unmask(old);
+  }
+
+  @Override
+  public V remove(Object key) {
+    if (!(key instanceof ClassField)) {
+      return null;
+    }
+    moveIndexedKeys();
+    int index = myClass.getFieldIndex((ClassField) key);
+    if (index >= 0) {
+      return index < myValues.length ? removeAt(index) : null;
+    }
+    return myOtherValues == null ? null : myOtherValues.remove(key);
+  }
+
+  @Override
+  public int size() {
+    moveIndexedKeys();
+    return mySize + (myOtherValues == null ? 0 : myOtherValues.size());
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public void clear() {
+    myValues = EMPTY_ARRAY;
+    mySize = 0;
+    myOtherValues = null;
+  }
+
+  @NotNull
+  @Override
+  public Set<Entry<ClassField, V>> entrySet() {
+    return new AbstractSet<>() {
+      @NotNull
+      @Override
+      public Iterator<Entry<ClassField, V>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return ClassFieldMap.this.size();
+      }
+    };
+  }
+
+  private class IndexEntry implements Entry<ClassField, V> {
+    private final int myIndex;
+    private final ClassField myField;
+
+    private IndexEntry(int index, ClassField field) {
+      myIndex = index;
+      myField = field;
+    }
+
+    @Override
+    public ClassField getKey() {
+      return myField;
+    }
+
+    @Override
+    public V getValue() {
+      return getAt(myIndex);
+    }
+
+    @Override
+    public V setValue(V value) {
+      return putAt(myIndex, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) return false;
+      Entry<?, ?> entry = (Entry<?, ?>) o;
+      return myField.equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return myField.hashCode() ^ Objects.hashCode(getValue());
+    }
+  }
+
+  private class EntryIterator implements Iterator<Entry<ClassField, V>> {
+    private final ClassField[] myFields = myClass.getFieldArray();
+    private int myNext = -1;
+    private int myLast = -1;
+    private Iterator<Entry<ClassField, V>> myOtherIterator;
+
+    private EntryIterator() {
+      moveIndexedKeys();
+      advance();
+    }
+
+    private void advance() {
+      do {
+        myNext++;
+      } while (myNext < myValues.length && myValues[myNext] == null);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (myNext < myValues.length) {
+        return true;
+      }
+      if (myOtherIterator == null && myOtherValues != null) {
+        myOtherIterator = myOtherValues.entrySet().iterator();
+      }
+      return myOtherIterator != null && myOtherIterator.hasNext();
+    }
+
+    @Override
+    public Entry<ClassField, V> next() {
+      if (myNext < myValues.length) {
+        if (myNext >= myFields.length) {
+          throw new ConcurrentModificationException();
+        }
+        myLast = myNext;
+        advance();
+        return new IndexEntry(myLast, myFields[myLast]);
+      }
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      myLast = -1;
+      return myOtherIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      if (myLast >= 0) {
+        removeAt(myLast);
+        myLast = -1;
+      } else if (myOtherIterator != null) {
+        myOtherIterator.remove();
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+  }
+}
@@ -7,7 +7,6 @@ import org.arend.core.subst.ExprSubstitution;
 import org.arend.naming.reference.TCDefReferable;
 import org.arend.prelude.Prelude;
 
-import java.util.HashMap;
 import java.util.Map;
 
 public class DConstructor extends FunctionDefinition {
@@ -47,7 +46,7 @@ public class DConstructor extends FunctionDefinition {
       while (link.getNext().hasNext()) {
         link = link.getNext();
       }
-      Map<ClassField, Expression> implementations = new HashMap<>();
+      Map<ClassField, Expression> implementations = new ClassFieldMap<>(Prelude.ARRAY);
       implementations.put(Prelude.ARRAY_ELEMENTS_TYPE, arrayElementsType == null ? new ReferenceExpression(getParameters()) : arrayElementsType);
       implementations.put(Prelude.ARRAY_LENGTH, arrayLength instanceof ConCallExpression ? ((ConCallExpression) arrayLength).getDefCallArguments().get(0) : ((IntegerExpression) arrayLength).isZero() ? arrayLength : ((IntegerExpression) arrayLength).pred());
       link.setType(new ClassCallExpression(Prelude.ARRAY, type.getLevels(), implementations, type.getSort(), UniverseKind.NO_UNIVERSES));
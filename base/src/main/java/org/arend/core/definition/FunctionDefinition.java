@@ -13,12 +13,14 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class FunctionDefinition extends Definition implements Function, CoreFunctionDefinition {
   private DependentLink myParameters;
   private Expression myResultType;
   private Expression myResultTypeLevel;
   private Body myBody;
+  private volatile Supplier<? extends Body> myLazyBody;
   private List<Integer> myParametersTypecheckingOrder;
   private Kind myKind = Kind.FUNC;
   private HiddenStatus myBodyIsHidden = HiddenStatus.NOT_HIDDEN;
@@ -37,18 +39,38 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
     myParameters = EmptyDependentLink.getInstance();
   }
 
+  private Body loadBody() {
+    if (myLazyBody != null) {
+      synchronized (this) {
+        Supplier<? extends Body> lazyBody = myLazyBody;
+        if (lazyBody != null) {
+          myBody = lazyBody.get();
+          myLazyBody = null;
+        }
+      }
+    }
+    return myBody;
+  }
+
   @Override
   public Body getBody() {
-    return isSFunc() || myBodyIsHidden != HiddenStatus.NOT_HIDDEN ? null : myBody;
+    return isSFunc() || myBodyIsHidden != HiddenStatus.NOT_HIDDEN ? null : loadBody();
   }
 
   @Override
   public Body getActualBody() {
-    return myBodyIsHidden == HiddenStatus.REALLY_HIDDEN ? null : myBody;
+    return myBodyIsHidden == HiddenStatus.REALLY_HIDDEN ? null : loadBody();
   }
 
   public Body getReallyActualBody() {
-    return myBody;
+    return loadBody();
+  }
+
+  /**
+   * @return false if the body was set by {@link #setLazyBody} and was not computed yet.
+   */
+  public boolean isBodyLoaded() {
+    return myLazyBody == null;
   }
 
   public HiddenStatus getBodyHiddenStatus() {
@@ -64,7 +86,21 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
   }
 
   public void setBody(Body body) {
-    myBody = body;
+    synchronized (this) {
+      myBody = body;
+      myLazyBody = null;
+    }
+  }
+
+  /**
+   * Sets a body which will be computed on the first access.
+   * It is used to avoid deserialization of bodies that are never unfolded.
+   */
+  public void setLazyBody(Supplier<? extends Body> body) {
+    synchronized (this) {
+      myBody = null;
+      myLazyBody = body;
+    }
   }
 
   @Override
@@ -2,6 +2,7 @@ package org.arend.core.elimtree;
 
 import org.arend.core.constructor.*;
 import org.arend.core.definition.ClassField;
+import org.arend.core.definition.ClassFieldMap;
 import org.arend.core.expr.*;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.prelude.Prelude;
@@ -250,7 +251,7 @@ public class BranchElimTree extends ElimTree {
         }
         args.addAll(arguments.subList(index + 1, arguments.size()));
         List<Expression> newArgs = getSingleConstructorChild().normalizeArguments(args);
-        Map<ClassField, Expression> implementations = new HashMap<>();
+        Map<ClassField, Expression> implementations = new ClassFieldMap<>(classCall.getDefinition());
         int i = 0;
         for (ClassField field : classCon.getClassDefinition().getFields()) {
           if (!classCon.getClassDefinition().isImplemented(field)) {
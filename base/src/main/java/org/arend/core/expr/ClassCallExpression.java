@@ -27,6 +27,7 @@ import org.arend.ext.typechecking.TypedExpression;
 import org.arend.naming.renamer.Renamer;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.result.TypecheckingResult;
+import org.arend.util.CollectionCompactor;
 import org.arend.util.SingletonList;
 import org.arend.util.Wrapper;
 import org.jetbrains.annotations.NotNull;
@@ -36,7 +37,7 @@ import java.util.*;
 
 public class ClassCallExpression extends DefCallExpression implements Type, CoreClassCallExpression {
   private final ClassCallBinding myThisBinding = new ClassCallBinding();
-  private final Map<ClassField, Expression> myImplementations;
+  private Map<ClassField, Expression> myImplementations;
   private Sort mySort;
   private UniverseKind myUniverseKind;
 
@@ -118,6 +119,18 @@ public class ClassCallExpression extends DefCallExpression implements Type, Core
     return myImplementations;
   }
 
+  /**
+   * Replaces the map of implementations with a compact immutable one.
+   * It should be invoked only when the expression is not going to be modified.
+   */
+  public void compactImplementations(CollectionCompactor compactor) {
+    if (myImplementations instanceof ClassFieldMap) {
+      ((ClassFieldMap<?>) myImplementations).trimToSize();
+    } else {
+      myImplementations = compactor.map(myImplementations);
+    }
+  }
+
   @NotNull
   @Override
   public Collection<? extends Map.Entry<? extends CoreClassField, ? extends CoreExpression>> getImplementations() {
@@ -138,6 +151,14 @@ public class ClassCallExpression extends DefCallExpression implements Type, Core
     return field instanceof ClassField ? myImplementations.get(field) : null;
   }
 
+  /**
+   * @return the implementation of the field with a given index in {@link ClassDefinition#getFieldArray}.
+   */
+  @SuppressWarnings("unchecked")
+  public Expression getAbsImplementationHere(int index) {
+    return ClassFieldMap.isIndexedBy(myImplementations, getDefinition()) ? ((ClassFieldMap<Expression>) myImplementations).getAt(index) : myImplementations.get(getDefinition().getFieldArray()[index]);
+  }
+
   @Override
   public @Nullable Expression getImplementationHere(@NotNull CoreClassField field, @NotNull CoreExpression thisExpr) {
     if (!(field instanceof ClassField && thisExpr instanceof Expression)) {
@@ -259,7 +280,7 @@ public class ClassCallExpression extends DefCallExpression implements Type, Core
 
   @Override
   public @NotNull DependentLink getClassFieldParameters() {
-    Map<ClassField, Expression> implementations = new HashMap<>();
+    Map<ClassField, Expression> implementations = new ClassFieldMap<>(getDefinition());
     NewExpression newExpr = new NewExpression(null, new ClassCallExpression(getDefinition(), getLevels(), implementations, Sort.PROP, UniverseKind.NO_UNIVERSES));
     newExpr.getClassCall().copyImplementationsFrom(this);
 
@@ -282,7 +303,7 @@ public class ClassCallExpression extends DefCallExpression implements Type, Core
           if (arg instanceof ReferenceExpression && ((ReferenceExpression) arg).getBinding() == thisBindings) {
             type = type.normalize(NormalizationMode.WHNF);
             if (type instanceof ClassCallExpression && getDefinition().isSubClassOf(((ClassCallExpression) type).getDefinition())) {
-              Map<ClassField, Expression> subImplementations = new HashMap<>(((ClassCallExpression) type).getImplementedHere());
+              Map<ClassField, Expression> subImplementations = new ClassFieldMap<>(((ClassCallExpression) type).getDefinition(), ((ClassCallExpression) type).getImplementedHere());
               ClassCallExpression newClassCall = new ClassCallExpression(((ClassCallExpression) type).getDefinition(), getLevels(), subImplementations, Sort.PROP, UniverseKind.NO_UNIVERSES);
               for (Map.Entry<ClassField, Expression> entry : implementations.entrySet()) {
                 if (!newClassCall.isImplemented(entry.getKey())) {
@@ -355,7 +376,7 @@ public class ClassCallExpression extends DefCallExpression implements Type, Core
 
         @Override
         public Expression visitClassCall(ClassCallExpression expr, Void params) {
-          Map<ClassField, Expression> fieldSet = new HashMap<>();
+          Map<ClassField, Expression> fieldSet = new ClassFieldMap<>(expr.getDefinition());
           ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels().subst(getLevelSubstitution()), fieldSet, expr.getSort().subst(getLevelSubstitution()), expr.getUniverseKind());
           getExprSubstitution().add(expr.getThisBinding(), new ReferenceExpression(result.getThisBinding()));
           for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
@@ -0,0 +1,358 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.elimtree.Body;
+import org.arend.core.elimtree.ElimBody;
+import org.arend.core.elimtree.ElimClause;
+import org.arend.core.elimtree.IntervalElim;
+import org.arend.core.expr.*;
+import org.arend.core.pattern.Pattern;
+
+import java.util.List;
+
+/**
+ * Runs several {@link ExpressionAnalysis} in a single traversal.
+ * Every analysis may skip subexpressions or stop independently of others.
+ * Subexpressions are not traversed only if every analysis either skips them or is stopped.
+ */
+public class AnalysisVisitor extends VoidExpressionVisitor<Void> {
+  private static final int ACTIVE = -1;
+  private static final int STOPPED = -2;
+
+  private final List<? extends ExpressionAnalysis> myAnalyses;
+  private final int[] mySuspendedAt;
+  private int myNumberOfActive;
+  private int myNumberOfSuspended;
+  private int myDepth;
+
+  public AnalysisVisitor(List<? extends ExpressionAnalysis> analyses) {
+    myAnalyses = analyses;
+    mySuspendedAt = new int[analyses.size()];
+    for (int i = 0; i < mySuspendedAt.length; i++) {
+      mySuspendedAt[i] = ACTIVE;
+    }
+    myNumberOfActive = analyses.size();
+  }
+
+  /**
+   * @return true if every analysis is stopped.
+   */
+  public boolean isFinished() {
+    return myNumberOfActive == 0 && myNumberOfSuspended == 0;
+  }
+
+  public void analyze(Expression expr) {
+    if (myNumberOfActive == 0) {
+      return;
+    }
+
+    myDepth = 0;
+    for (int i = 0; i < mySuspendedAt.length; i++) {
+      if (mySuspendedAt[i] == ACTIVE) {
+        update(i, myAnalyses.get(i).start(expr));
+      }
+    }
+    if (myNumberOfActive > 0) {
+      expr.accept(this, null);
+    }
+    resume();
+  }
+
+  public void analyzeBody(Body body) {
+    if (body instanceof IntervalElim) {
+      for (IntervalElim.CasePair pair : ((IntervalElim) body).getCases()) {
+        if (pair.proj1 != null) {
+          analyze(pair.proj1);
+        }
+        if (pair.proj2 != null) {
+          analyze(pair.proj2);
+        }
+      }
+      body = ((IntervalElim) body).getOtherwise();
+    }
+
+    if (body instanceof Expression) {
+      analyze((Expression) body);
+    } else if (body instanceof ElimBody) {
+      for (ElimClause<Pattern> clause : ((ElimBody) body).getClauses()) {
+        for (ExpressionAnalysis analysis : myAnalyses) {
+          analysis.enterClause(clause);
+        }
+        if (clause.getExpression() != null) {
+          analyze(clause.getExpression());
+        }
+        for (ExpressionAnalysis analysis : myAnalyses) {
+          analysis.exitClause(clause);
+        }
+      }
+    } else {
+      assert body == null;
+    }
+  }
+
+  private void update(int index, ExpressionAnalysis.Action action) {
+    if (action == ExpressionAnalysis.Action.SKIP) {
+      mySuspendedAt[index] = myDepth;
+      myNumberOfActive--;
+      myNumberOfSuspended++;
+    } else if (action == ExpressionAnalysis.Action.STOP) {
+      mySuspendedAt[index] = STOPPED;
+      myNumberOfActive--;
+    }
+  }
+
+  private boolean enter(Expression expr) {
+    myDepth++;
+    for (int i = 0; i < mySuspendedAt.length; i++) {
+      if (mySuspendedAt[i] == ACTIVE) {
+        update(i, myAnalyses.get(i).enter(expr));
+      }
+    }
+    return myNumberOfActive > 0;
+  }
+
+  private void resume() {
+    if (myNumberOfSuspended > 0) {
+      for (int i = 0; i < mySuspendedAt.length; i++) {
+        if (mySuspendedAt[i] == myDepth) {
+          mySuspendedAt[i] = ACTIVE;
+          myNumberOfActive++;
+          myNumberOfSuspended--;
+        }
+      }
+    }
+  }
+
+  private void exit() {
+    resume();
+    myDepth--;
+  }
+
+  @Override
+  public Void visitApp(AppExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitApp(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitDefCall(DefCallExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitDefCall(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitConCall(ConCallExpression expr, Void params) {
+    // Constructors in the recursive argument are entered one after another and exited together
+    int depth = myDepth;
+    Expression it = expr;
+    boolean visitLast = true;
+    do {
+      expr = (ConCallExpression) it;
+      if (!enter(expr)) {
+        visitLast = false;
+        break;
+      }
+
+      for (Expression arg : expr.getDataTypeArguments()) {
+        arg.accept(this, params);
+      }
+
+      int recursiveParam = expr.getDefinition().getRecursiveParameter();
+      if (recursiveParam < 0) {
+        for (Expression arg : expr.getDefCallArguments()) {
+          arg.accept(this, params);
+        }
+        visitLast = false;
+        break;
+      }
+
+      for (int i = 0; i < expr.getDefCallArguments().size(); i++) {
+        if (i != recursiveParam) {
+          expr.getDefCallArguments().get(i).accept(this, params);
+        }
+      }
+
+      it = expr.getDefCallArguments().get(recursiveParam);
+    } while (it instanceof ConCallExpression);
+
+    if (visitLast) {
+      it.accept(this, params);
+    }
+    while (myDepth > depth) {
+      exit();
+    }
+    return null;
+  }
+
+  @Override
+  public Void visitClassCall(ClassCallExpression expr, Void params) {
+    if (enter(expr)) {
+      for (Expression impl : expr.getImplementedHere().values()) {
+        impl.accept(this, params);
+      }
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitReference(ReferenceExpression expr, Void params) {
+    enter(expr);
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitInferenceReference(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitSubst(SubstExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitSubst(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitLam(LamExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitLam(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitPi(PiExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitPi(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitSigma(SigmaExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitSigma(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitUniverse(UniverseExpression expr, Void params) {
+    enter(expr);
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitError(ErrorExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitError(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitTuple(TupleExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitTuple(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitProj(ProjExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitProj(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitNew(NewExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitNew(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitPEval(PEvalExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitPEval(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitLet(LetExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitLet(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitCase(CaseExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitCase(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitOfType(OfTypeExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitOfType(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitInteger(IntegerExpression expr, Void params) {
+    enter(expr);
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitTypeCoerce(TypeCoerceExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitTypeCoerce(expr, params);
+    }
+    exit();
+    return null;
+  }
+
+  @Override
+  public Void visitArray(ArrayExpression expr, Void params) {
+    if (enter(expr)) {
+      super.visitArray(expr, params);
+    }
+    exit();
+    return null;
+  }
+}
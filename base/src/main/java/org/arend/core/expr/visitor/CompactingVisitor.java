@@ -0,0 +1,36 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.expr.ClassCallExpression;
+import org.arend.core.expr.ConCallExpression;
+import org.arend.core.expr.DefCallExpression;
+import org.arend.util.CollectionCompactor;
+
+/**
+ * Compacts collections stored in expressions.
+ * Implementations of class calls become immutable, so it should be applied only to expressions that are not going to be modified.
+ */
+public class CompactingVisitor extends VoidExpressionVisitor<Void> {
+  private final CollectionCompactor myCompactor;
+
+  public CompactingVisitor(CollectionCompactor compactor) {
+    myCompactor = compactor;
+  }
+
+  @Override
+  public Void visitDefCall(DefCallExpression expr, Void params) {
+    myCompactor.list(expr.getDefCallArguments());
+    return super.visitDefCall(expr, params);
+  }
+
+  @Override
+  protected void processConCall(ConCallExpression expr, Void params) {
+    myCompactor.list(expr.getDataTypeArguments());
+    myCompactor.list(expr.getDefCallArguments());
+  }
+
+  @Override
+  public Void visitClassCall(ClassCallExpression expr, Void params) {
+    expr.compactImplementations(myCompactor);
+    return super.visitClassCall(expr, params);
+  }
+}
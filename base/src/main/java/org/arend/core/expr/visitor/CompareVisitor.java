@@ -841,7 +841,7 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
           }
         }
       } else {
-        Map<ClassField, Expression> implementations = new HashMap<>();
+        Map<ClassField, Expression> implementations = new ClassFieldMap<>(classCall1.getDefinition());
         codSort = classCall1.getSort();
         ClassCallExpression classCall = new ClassCallExpression(classCall1.getDefinition(), classCall1.getLevels(), implementations, codSort, classCall1.getUniverseKind());
         int i = 0;
@@ -913,17 +913,20 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
 
   private boolean checkSubclassImpl(ClassCallExpression classCall1, ClassCallExpression classCall2, boolean correctOrder) {
     CMP origCMP = myCMP;
-    for (ClassField field : classCall2.getDefinition().getFields()) {
+    boolean sameClass = classCall1.getDefinition() == classCall2.getDefinition();
+    ClassField[] fields = classCall2.getDefinition().getFieldArray();
+    for (int i = 0; i < fields.length; i++) {
+      ClassField field = fields[i];
       if (field.isProperty()) {
         continue;
       }
 
-      Expression impl2 = classCall2.getAbsImplementationHere(field);
+      Expression impl2 = classCall2.getAbsImplementationHere(i);
       if (impl2 == null) {
         continue;
       }
 
-      Expression impl1 = classCall1.getAbsImplementationHere(field);
+      Expression impl1 = sameClass ? classCall1.getAbsImplementationHere(i) : classCall1.getAbsImplementationHere(field);
       Binding binding = classCall1.getThisBinding();
       if (impl1 == null) {
         AbsExpression absImpl1 = classCall1.getDefinition().getImplementation(field);
@@ -1252,25 +1255,29 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
       }
     }
 
-    Set<? extends ClassField> fields = null;
+    List<ClassField> fields = null;
     if (type != null) {
       ClassCallExpression classCall = type.cast(ClassCallExpression.class);
       if (classCall != null) {
-        Set<ClassField> fieldsCopy = new HashSet<>();
-        for (ClassField field : classCall.getDefinition().getFields()) {
+        fields = new ArrayList<>();
+        for (ClassField field : classCall.getDefinition().getFieldArray()) {
           if (!classCall.isImplemented(field)) {
-            fieldsCopy.add(field);
+            fields.add(field);
           }
         }
-        fields = fieldsCopy;
       }
     }
     if (fields == null) {
-      fields = classCall1.getDefinition().getFields();
-      if (classCall1.getDefinition() != classCall2.getDefinition()) {
-        fields = new HashSet<>(fields);
-        //noinspection SuspiciousMethodCalls
-        fields.retainAll(classCall2.getDefinition().getFields());
+      ClassField[] fields1 = classCall1.getDefinition().getFieldArray();
+      if (classCall1.getDefinition() == classCall2.getDefinition()) {
+        fields = Arrays.asList(fields1);
+      } else {
+        fields = new ArrayList<>(fields1.length);
+        for (ClassField field : fields1) {
+          if (classCall2.getDefinition().getFieldIndex(field) >= 0) {
+            fields.add(field);
+          }
+        }
       }
     }
 
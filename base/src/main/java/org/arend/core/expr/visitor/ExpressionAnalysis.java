@@ -0,0 +1,42 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.elimtree.ElimClause;
+import org.arend.core.expr.Expression;
+import org.arend.core.pattern.Pattern;
+
+/**
+ * An analysis of core expressions that can share a single traversal with other analyses.
+ *
+ * @see AnalysisVisitor
+ */
+public interface ExpressionAnalysis {
+  enum Action {
+    /** Continue with subexpressions. */
+    CONTINUE,
+    /** Skip subexpressions of the current expression. */
+    SKIP,
+    /** Do not invoke this analysis anymore. */
+    STOP
+  }
+
+  /**
+   * Invoked before subexpressions of {@code expr} are traversed.
+   * Constructor calls which are arguments of other constructor calls are passed to this method before their arguments are traversed.
+   */
+  Action enter(Expression expr);
+
+  /**
+   * Invoked for the root of every traversed expression before {@link #enter}.
+   */
+  default Action start(Expression root) {
+    return Action.CONTINUE;
+  }
+
+  /**
+   * Invoked before the expression of a clause is traversed.
+   * This method is invoked even if the clause does not have an expression.
+   */
+  default void enterClause(ElimClause<Pattern> clause) {}
+
+  default void exitClause(ElimClause<Pattern> clause) {}
+}
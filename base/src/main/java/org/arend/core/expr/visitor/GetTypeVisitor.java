@@ -2,6 +2,7 @@ package org.arend.core.expr.visitor;
 
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.definition.ClassField;
+import org.arend.core.definition.ClassFieldMap;
 import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.definition.UniverseKind;
 import org.arend.core.expr.*;
@@ -17,7 +18,6 @@ import org.arend.prelude.Prelude;
 import org.arend.util.SingletonList;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -231,7 +231,7 @@ public class GetTypeVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitArray(ArrayExpression expr, Void params) {
-    Map<ClassField, Expression> implementations = new HashMap<>();
+    Map<ClassField, Expression> implementations = new ClassFieldMap<>(Prelude.ARRAY);
     implementations.put(Prelude.ARRAY_ELEMENTS_TYPE, expr.getElementsType());
     if (expr.getTail() == null) {
       implementations.put(Prelude.ARRAY_LENGTH, new SmallIntegerExpression(expr.getElements().size()));
@@ -0,0 +1,150 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.ClassField;
+import org.arend.core.elimtree.ElimClause;
+import org.arend.core.expr.*;
+import org.arend.core.pattern.BindingPattern;
+import org.arend.core.pattern.Pattern;
+
+import java.util.*;
+
+/**
+ * Computes the same parameters as {@link GoodThisParametersVisitor}, but can be run together with other analyses.
+ * Since an argument is not traversed by its parent, references in good positions are recorded when their parent is entered.
+ * They are counted by identity, so a reference which occurs in several positions is handled correctly.
+ */
+public class GoodThisParametersAnalysis implements ExpressionAnalysis {
+  private final List<Boolean> myGoodParameters;
+  private final Map<Binding, Integer> myIndexMap = new HashMap<>();
+  private final Map<Expression, Integer> myGoodOccurrences = new IdentityHashMap<>();
+  private final int myNumberOfClauseParameters;
+  private int myNumberOfGood;
+
+  public GoodThisParametersAnalysis(List<Boolean> goodParameters, DependentLink parameters) {
+    myGoodParameters = new ArrayList<>();
+    myNumberOfClauseParameters = -1;
+    int i = 0;
+    for (DependentLink link = parameters; link.hasNext(); link = link.getNext(), i++) {
+      addParameter(i < goodParameters.size() ? goodParameters.get(i) : true);
+      myIndexMap.put(link, i);
+    }
+  }
+
+  /**
+   * Parameters are bound by patterns of clauses.
+   */
+  public GoodThisParametersAnalysis(List<Boolean> goodParameters, int numberOfParameters) {
+    myGoodParameters = new ArrayList<>();
+    myNumberOfClauseParameters = numberOfParameters;
+    for (int i = 0; i < numberOfParameters; i++) {
+      addParameter(i < goodParameters.size() ? goodParameters.get(i) : true);
+    }
+  }
+
+  private void addParameter(boolean good) {
+    myGoodParameters.add(good);
+    if (good) {
+      myNumberOfGood++;
+    }
+  }
+
+  public List<Boolean> getGoodParameters() {
+    return myNumberOfGood > 0 ? myGoodParameters : Collections.emptyList();
+  }
+
+  private void setBad(int index) {
+    if (myGoodParameters.get(index)) {
+      myGoodParameters.set(index, false);
+      myNumberOfGood--;
+    }
+  }
+
+  @Override
+  public void enterClause(ElimClause<Pattern> clause) {
+    if (myNumberOfClauseParameters < 0) {
+      return;
+    }
+    for (int i = 0; i < myNumberOfClauseParameters; i++) {
+      Pattern pattern = clause.getPatterns().get(i);
+      if (pattern instanceof BindingPattern) {
+        myIndexMap.put(pattern.getFirstBinding(), i);
+      } else {
+        setBad(i);
+      }
+    }
+  }
+
+  @Override
+  public void exitClause(ElimClause<Pattern> clause) {
+    if (myNumberOfClauseParameters >= 0) {
+      myIndexMap.clear();
+      myGoodOccurrences.clear();
+    }
+  }
+
+  @Override
+  public Action enter(Expression expr) {
+    if (myNumberOfGood == 0) {
+      return Action.STOP;
+    }
+    if (myIndexMap.isEmpty()) {
+      return Action.SKIP;
+    }
+
+    if (expr instanceof ReferenceExpression) {
+      Integer index = myIndexMap.get(((ReferenceExpression) expr).getBinding());
+      if (index != null && !removeGoodOccurrence(expr)) {
+        setBad(index);
+      }
+    } else if (expr instanceof ConCallExpression) {
+      ConCallExpression conCall = (ConCallExpression) expr;
+      addArguments(conCall.getDataTypeArguments(), conCall.getDefinition().getDataType().getGoodThisParameters());
+      addArguments(conCall.getDefCallArguments(), conCall.getDefinition().getGoodThisParameters());
+    } else if (expr instanceof ClassCallExpression) {
+      ClassCallExpression classCall = (ClassCallExpression) expr;
+      for (Map.Entry<ClassField, Expression> entry : classCall.getImplementedHere().entrySet()) {
+        if (classCall.getDefinition().isGoodField(entry.getKey())) {
+          addArgument(entry.getValue());
+        }
+      }
+    } else if (expr instanceof DefCallExpression) {
+      addArguments(((DefCallExpression) expr).getDefCallArguments(), ((DefCallExpression) expr).getDefinition().getGoodThisParameters());
+    } else if (expr instanceof TypeCoerceExpression) {
+      addArguments(((TypeCoerceExpression) expr).getClauseArguments(), ((TypeCoerceExpression) expr).getDefinition().getGoodThisParameters());
+    }
+    return Action.CONTINUE;
+  }
+
+  private void addArguments(List<? extends Expression> args, List<Boolean> goodParameters) {
+    for (int i = 0; i < args.size() && i < goodParameters.size(); i++) {
+      if (goodParameters.get(i)) {
+        addArgument(args.get(i));
+      }
+    }
+  }
+
+  private void addArgument(Expression arg) {
+    arg = arg.getUnderlyingExpression();
+    if (arg instanceof NewExpression) {
+      arg = ((NewExpression) arg).getRenewExpression();
+    }
+    if (arg instanceof ReferenceExpression && myIndexMap.containsKey(((ReferenceExpression) arg).getBinding())) {
+      myGoodOccurrences.merge(arg, 1, Integer::sum);
+    }
+  }
+
+  private boolean removeGoodOccurrence(Expression expr) {
+    Integer count = myGoodOccurrences.get(expr);
+    if (count == null) {
+      return false;
+    }
+    if (count == 1) {
+      myGoodOccurrences.remove(expr);
+    } else {
+      myGoodOccurrences.put(expr, count - 1);
+    }
+    return true;
+  }
+}
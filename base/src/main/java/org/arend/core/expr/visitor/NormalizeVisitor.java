@@ -716,7 +716,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
               key = new ArrayConstructor(true, true);
             } else {
               Expression at = classCall.getImplementationHere(Prelude.ARRAY_AT, argument);
-              Map<ClassField, Expression> impls = new HashMap<>();
+              Map<ClassField, Expression> impls = new ClassFieldMap<>(Prelude.ARRAY);
               impls.put(Prelude.ARRAY_ELEMENTS_TYPE, elementsType);
               Expression length_1 = length instanceof IntegerExpression ? ((IntegerExpression) length).pred() : ((ConCallExpression) length).getDefCallArguments().get(0);
               impls.put(Prelude.ARRAY_LENGTH, length_1);
@@ -850,7 +850,7 @@ public class NormalizeVisitor extends ExpressionTransformer<NormalizationMode>
   public ClassCallExpression visitClassCall(ClassCallExpression expr, NormalizationMode mode) {
     if (mode == NormalizationMode.WHNF) return expr;
 
-    Map<ClassField, Expression> fieldSet = new HashMap<>();
+    Map<ClassField, Expression> fieldSet = new ClassFieldMap<>(expr.getDefinition());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getLevels(), fieldSet, expr.getSort(), expr.getUniverseKind());
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
       fieldSet.put(entry.getKey(), entry.getValue().accept(this, mode).subst(expr.getThisBinding(), new ReferenceExpression(result.getThisBinding())));
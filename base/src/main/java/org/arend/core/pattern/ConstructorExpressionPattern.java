@@ -202,7 +202,7 @@ public class ConstructorExpressionPattern extends ConstructorPattern<Object> imp
     }
 
     ClassCallExpression classCall = (ClassCallExpression) dataExpr;
-    Map<ClassField, Expression> implementations = new HashMap<>();
+    Map<ClassField, Expression> implementations = new ClassFieldMap<>(classCall.getDefinition());
     ClassCallExpression resultClassCall = new ClassCallExpression(classCall.getDefinition(), classCall.getLevels(), implementations, Sort.PROP, UniverseKind.NO_UNIVERSES);
     resultClassCall.copyImplementationsFrom(classCall);
     int i = 0;
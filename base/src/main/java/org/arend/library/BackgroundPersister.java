@@ -0,0 +1,147 @@
+package org.arend.library;
+
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.module.ModulePath;
+import org.arend.module.error.ExceptionError;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.group.Group;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Persists updated modules of a library in a background thread while the rest of the library is typechecked.
+ * A module is handed to the writer as soon as all of its definitions are typechecked
+ * (see {@link #definitionTypechecked}); the remaining modules are persisted by {@link #finish}.
+ */
+public class BackgroundPersister {
+  private final SourceLibrary myLibrary;
+  private final Map<TCDefReferable, ModulePath> myModules = new HashMap<>();
+  private final Map<ModulePath, Set<TCDefReferable>> myRemainingDefinitions = new LinkedHashMap<>();
+  private final Map<ModulePath, Future<Boolean>> myResults = new LinkedHashMap<>();
+  private final List<GeneralError> myErrors = Collections.synchronizedList(new ArrayList<>());
+  private final Queue<ModulePath> myPersistedModules = new ConcurrentLinkedQueue<>();
+  private final ExecutorService myExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Arend persister");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Creates a persister for updated modules of a library.
+   * It should be created after the library is loaded and before it is typechecked.
+   */
+  public BackgroundPersister(SourceLibrary library) {
+    myLibrary = library;
+    for (ModulePath module : library.getUpdatedModules()) {
+      Group group = library.getModuleGroup(module, false);
+      if (group == null) {
+        continue;
+      }
+
+      Set<TCDefReferable> definitions = new HashSet<>();
+      group.traverseGroup(subgroup -> {
+        LocatedReferable referable = subgroup.getReferable();
+        if (referable instanceof TCDefReferable && referable.getKind().isTypecheckable()) {
+          definitions.add((TCDefReferable) referable);
+          myModules.put((TCDefReferable) referable, module);
+        }
+      });
+      myRemainingDefinitions.put(module, definitions);
+    }
+  }
+
+  /**
+   * Should be invoked when the typechecking of a definition is finished.
+   * If this was the last definition of a module, the module is submitted for persisting.
+   */
+  public synchronized void definitionTypechecked(TCDefReferable referable) {
+    ModulePath module = myModules.remove(referable);
+    if (module == null) {
+      return;
+    }
+
+    Set<TCDefReferable> definitions = myRemainingDefinitions.get(module);
+    if (definitions != null && definitions.remove(referable) && definitions.isEmpty()) {
+      myRemainingDefinitions.remove(module);
+      submit(module);
+    }
+  }
+
+  private void submit(ModulePath module) {
+    myResults.put(module, myExecutor.submit(() -> {
+      boolean ok = myLibrary.persistModule(module, IdReferableConverter.INSTANCE, myErrors::add);
+      if (ok) {
+        myPersistedModules.add(module);
+      }
+      return ok;
+    }));
+  }
+
+  public SourceLibrary getLibrary() {
+    return myLibrary;
+  }
+
+  /**
+   * Returns modules that were successfully persisted since the last invocation of this method.
+   */
+  public List<ModulePath> pollPersistedModules() {
+    List<ModulePath> result = new ArrayList<>();
+    for (ModulePath module = myPersistedModules.poll(); module != null; module = myPersistedModules.poll()) {
+      result.add(module);
+    }
+    return result;
+  }
+
+  /**
+   * Persists the remaining modules and waits until all modules are written.
+   *
+   * @param errorReporter a reporter for errors that occurred during persisting.
+   * @return true if all modules were persisted successfully, false otherwise.
+   */
+  public boolean finish(ErrorReporter errorReporter) {
+    synchronized (this) {
+      for (ModulePath module : myRemainingDefinitions.keySet()) {
+        submit(module);
+      }
+      myRemainingDefinitions.clear();
+      myModules.clear();
+    }
+    myExecutor.shutdown();
+
+    boolean ok = true;
+    for (Map.Entry<ModulePath, Future<Boolean>> entry : myResults.entrySet()) {
+      try {
+        if (!entry.getValue().get()) {
+          ok = false;
+        }
+      } catch (ExecutionException e) {
+        myErrors.add(new ExceptionError(e, "persisting", entry.getKey()));
+        ok = false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        myExecutor.shutdownNow();
+        return false;
+      }
+    }
+
+    synchronized (myErrors) {
+      for (GeneralError error : myErrors) {
+        errorReporter.report(error);
+      }
+      myErrors.clear();
+    }
+
+    if (myLibrary instanceof PersistableSourceLibrary) {
+      ((PersistableSourceLibrary) myLibrary).clearUpdateModules();
+    }
+    return ok;
+  }
+}
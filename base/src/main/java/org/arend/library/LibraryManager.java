@@ -7,10 +7,12 @@ import org.arend.extImpl.DefinitionRequester;
 import org.arend.library.classLoader.MultiClassLoader;
 import org.arend.library.error.LibraryError;
 import org.arend.library.resolver.LibraryResolver;
+import org.arend.module.error.ExceptionError;
 import org.arend.module.scopeprovider.CachingModuleScopeProvider;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.scope.Scope;
 import org.arend.prelude.Prelude;
+import org.arend.typechecking.CoreCompactor;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.Range;
@@ -19,6 +21,11 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -30,9 +37,18 @@ public class LibraryManager {
   private final InstanceProviderSet myInstanceProviderSet;
   private final ErrorReporter myTypecheckingErrorReporter;
   private final ErrorReporter myLibraryErrorReporter;
+  private final Object myErrorLock = new Object();
+  private final Object myExtensionLock = new Object();
   private final Map<Library, Set<Library>> myReverseDependencies = new LinkedHashMap<>();
-  private final Set<Library> myLoadingLibraries = new HashSet<>();
+  private final Map<String, Library> myLibrariesByName = new ConcurrentHashMap<>();
+  private final Map<Library, Thread> myLoadingLibraries = new LinkedHashMap<>();
+  private final Map<Thread, Library> myWaitingThreads = new HashMap<>();
+  private final ThreadLocal<Set<Library>> myLoadingChain = ThreadLocal.withInitial(LinkedHashSet::new);
+  private final ThreadLocal<Boolean> myConcurrentLoading = ThreadLocal.withInitial(() -> false);
   private final Set<Library> myFailedLibraries = new HashSet<>();
+  private int myLoadingThreads = 1;
+  private int myResolvingThreads = 1;
+  private CoreCompactor myCoreCompactor;
   private MultiClassLoader<Library> myExternalClassLoader = new MultiClassLoader<>(ArendExtension.class.getClassLoader());
   private MultiClassLoader<Library> myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
   private final DefinitionRequester myDefinitionRequester;
@@ -50,8 +66,17 @@ public class LibraryManager {
   public LibraryManager(LibraryResolver libraryResolver, @Nullable InstanceProviderSet instanceProviderSet, ErrorReporter typecheckingErrorReporter, ErrorReporter libraryErrorReporter, DefinitionRequester definitionRequester, DefinitionListener listener) {
     myLibraryResolver = libraryResolver;
     myInstanceProviderSet = instanceProviderSet;
-    myTypecheckingErrorReporter = typecheckingErrorReporter;
-    myLibraryErrorReporter = libraryErrorReporter;
+    // Libraries may be loaded concurrently, so errors are reported under a lock
+    myTypecheckingErrorReporter = error -> {
+      synchronized (myErrorLock) {
+        typecheckingErrorReporter.report(error);
+      }
+    };
+    myLibraryErrorReporter = error -> {
+      synchronized (myErrorLock) {
+        libraryErrorReporter.report(error);
+      }
+    };
     myDefinitionRequester = definitionRequester;
     myDefinitionListener = listener;
   }
@@ -120,7 +145,7 @@ public class LibraryManager {
    *
    * @return true if the library is registered in this library manager, false otherwise.
    */
-  public boolean isRegistered(Library library) {
+  public synchronized boolean isRegistered(Library library) {
     return myReverseDependencies.containsKey(library);
   }
 
@@ -129,8 +154,8 @@ public class LibraryManager {
    *
    * @return the set of registered libraries.
    */
-  public Collection<? extends Library> getRegisteredLibraries() {
-    return myReverseDependencies.keySet();
+  public synchronized Collection<? extends Library> getRegisteredLibraries() {
+    return new ArrayList<>(myReverseDependencies.keySet());
   }
 
   /**
@@ -141,12 +166,28 @@ public class LibraryManager {
    * @return the library with the given name.
    */
   public Library getRegisteredLibrary(String libraryName) {
-    for (Library library : getRegisteredLibraries()) {
-      if (library.getName().equals(libraryName)) {
-        return library;
+    return libraryName == null ? null : myLibrariesByName.get(libraryName);
+  }
+
+  private void addRegisteredLibrary(Library library) {
+    myReverseDependencies.put(library, new HashSet<>());
+    myLibrariesByName.putIfAbsent(library.getName(), library);
+  }
+
+  /**
+   * Should be invoked after the library is removed from the registered libraries.
+   * If another registered library has the same name, it takes the place of the removed one.
+   */
+  private void removeRegisteredLibraryName(Library library) {
+    String name = library.getName();
+    if (myLibrariesByName.remove(name, library)) {
+      for (Library other : myReverseDependencies.keySet()) {
+        if (other.getName().equals(name)) {
+          myLibrariesByName.put(name, other);
+          break;
+        }
       }
     }
-    return null;
   }
 
   /**
@@ -183,16 +224,118 @@ public class LibraryManager {
    * @return the loaded library if loading succeeded, null otherwise.
    */
   public Library loadDependency(Library library, String dependencyName, TypecheckingOrderingListener typechecking) {
+    Library dependency = resolveDependency(library, dependencyName);
+    return dependency != null && loadLibrary(dependency, typechecking) ? dependency : null;
+  }
+
+  private Library resolveDependency(Library library, String dependencyName) {
     Library dependency = getRegisteredLibrary(dependencyName);
     if (dependency == null) {
-      dependency = myLibraryResolver.resolve(library, dependencyName);
+      synchronized (myLibraryResolver) {
+        dependency = myLibraryResolver.resolve(library, dependencyName);
+      }
       if (dependency == null) {
         showLibraryNotFoundError(dependencyName);
-        return null;
       }
     }
+    return dependency;
+  }
 
-    return loadLibrary(dependency, typechecking) ? dependency : null;
+  /**
+   * Sets the number of threads that are used to load dependencies of a library.
+   * Independent dependencies are loaded concurrently if it is greater than 1.
+   */
+  public void setLoadingThreads(int threads) {
+    myLoadingThreads = threads;
+  }
+
+  /**
+   * Sets the number of threads that are used to resolve names in modules of a library.
+   * Modules that do not import each other are resolved concurrently if it is greater than 1.
+   */
+  public void setResolvingThreads(int threads) {
+    myResolvingThreads = threads;
+  }
+
+  public int getResolvingThreads() {
+    return myResolvingThreads;
+  }
+
+  /**
+   * Sets a compactor that is applied to definitions of loaded binary modules.
+   * If it is null, definitions are not compacted.
+   */
+  public void setCoreCompactor(CoreCompactor compactor) {
+    myCoreCompactor = compactor;
+  }
+
+  public @Nullable CoreCompactor getCoreCompactor() {
+    return myCoreCompactor;
+  }
+
+  /**
+   * Loads dependencies of a given library concurrently if it is allowed by {@link #setLoadingThreads}.
+   * Dependencies of dependencies are loaded sequentially in the thread that loads the dependency.
+   * Extensions are still loaded one at a time.
+   *
+   * @param library       a library.
+   * @param dependencies  dependencies of the library.
+   * @param typechecking  a typechecker that will be used for loading extensions.
+   *
+   * @return a map from names of dependencies to loaded libraries; a dependency is mapped to null if its loading failed
+   *         and it is absent if it was not loaded by this method.
+   */
+  public Map<String, Library> loadDependencies(Library library, Collection<? extends LibraryDependency> dependencies, TypecheckingOrderingListener typechecking) {
+    if (myLoadingThreads <= 1 || dependencies.size() <= 1 || myConcurrentLoading.get()) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, Library> result = new HashMap<>();
+    Map<String, Library> toLoad = new LinkedHashMap<>();
+    for (LibraryDependency dependency : dependencies) {
+      Library resolved = resolveDependency(library, dependency.name);
+      if (resolved == null) {
+        result.put(dependency.name, null);
+      } else {
+        toLoad.put(dependency.name, resolved);
+      }
+    }
+
+    Set<Library> chain = new LinkedHashSet<>(myLoadingChain.get());
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(myLoadingThreads, toLoad.size()));
+    try {
+      Map<String, Future<Boolean>> futures = new LinkedHashMap<>();
+      for (Map.Entry<String, Library> entry : toLoad.entrySet()) {
+        futures.put(entry.getKey(), executor.submit(() -> {
+          // Dependencies inherit the chain of the library in order to detect cycles
+          myLoadingChain.set(new LinkedHashSet<>(chain));
+          myConcurrentLoading.set(true);
+          try {
+            return loadLibrary(entry.getValue(), typechecking);
+          } finally {
+            myConcurrentLoading.set(false);
+            myLoadingChain.remove();
+          }
+        }));
+      }
+
+      for (Map.Entry<String, Future<Boolean>> entry : futures.entrySet()) {
+        boolean ok;
+        try {
+          ok = entry.getValue().get();
+        } catch (ExecutionException e) {
+          myLibraryErrorReporter.report(new ExceptionError(e, "loading of library " + entry.getKey()));
+          ok = false;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          ok = false;
+        }
+        result.put(entry.getKey(), ok ? toLoad.get(entry.getKey()) : null);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return result;
   }
 
   /**
@@ -204,32 +347,68 @@ public class LibraryManager {
    * @return true if loading succeeded, false otherwise.
    */
   public boolean loadLibrary(Library library, TypecheckingOrderingListener typechecking) {
-    if (myLoadingLibraries.contains(library)) {
-      myLibraryErrorReporter.report(LibraryError.cyclic(myLoadingLibraries.stream().map(Library::getName)));
-      return false;
-    }
+    Set<Library> chain = myLoadingChain.get();
+    Thread thread = Thread.currentThread();
+    synchronized (this) {
+      while (myLoadingLibraries.containsKey(library)) {
+        // The library is being loaded by another thread; wait for it unless this leads to a cycle
+        if (chain.contains(library) || isWaitingFor(library, thread)) {
+          myLibraryErrorReporter.report(LibraryError.cyclic(chain.stream().map(Library::getName)));
+          return false;
+        }
+        myWaitingThreads.put(thread, library);
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        } finally {
+          myWaitingThreads.remove(thread);
+        }
+      }
 
-    if (myReverseDependencies.containsKey(library)) {
-      return true;
-    }
+      if (myReverseDependencies.containsKey(library)) {
+        return true;
+      }
 
-    if (myFailedLibraries.contains(library)) {
-      return false;
-    }
+      if (myFailedLibraries.contains(library)) {
+        return false;
+      }
 
-    myLoadingLibraries.add(library);
+      myLoadingLibraries.put(library, thread);
+      addRegisteredLibrary(library);
+    }
+    chain.add(library);
 
+    boolean result = false;
     try {
-      myReverseDependencies.put(library, new HashSet<>());
-      boolean result = library.load(this, typechecking);
-      if (!result) {
-        myReverseDependencies.remove(library);
-        myFailedLibraries.add(library);
-      }
+      result = library.load(this, typechecking);
       return result;
     } finally {
-      myLoadingLibraries.remove(library);
+      chain.remove(library);
+      synchronized (this) {
+        if (!result) {
+          myReverseDependencies.remove(library);
+          removeRegisteredLibraryName(library);
+          myFailedLibraries.add(library);
+        }
+        myLoadingLibraries.remove(library);
+        notifyAll();
+      }
+    }
+  }
+
+  private boolean isWaitingFor(Library library, Thread thread) {
+    Set<Thread> visited = new HashSet<>();
+    Thread owner = myLoadingLibraries.get(library);
+    while (owner != null && visited.add(owner)) {
+      if (owner == thread) {
+        return true;
+      }
+      Library waitingFor = myWaitingThreads.get(owner);
+      owner = waitingFor == null ? null : myLoadingLibraries.get(waitingFor);
     }
+    return false;
   }
 
   /**
@@ -251,6 +430,25 @@ public class LibraryManager {
 
   }
 
+  void libraryLoadingStarted(Library library) {
+    synchronized (myErrorLock) {
+      beforeLibraryLoading(library);
+    }
+  }
+
+  void libraryLoadingFinished(Library library, boolean successful) {
+    synchronized (myErrorLock) {
+      afterLibraryLoading(library, successful);
+    }
+  }
+
+  /**
+   * Extensions are loaded under this lock since they may typecheck definitions.
+   */
+  Object getExtensionLock() {
+    return myExtensionLock;
+  }
+
   /**
    * Registers a library dependency.
    *
@@ -258,7 +456,7 @@ public class LibraryManager {
    * @param dependee  the library on which the depender depends.
    *                  This library must be registered in this library manager.
    */
-  public void registerDependency(Library depender, Library dependee) {
+  public synchronized void registerDependency(Library depender, Library dependee) {
     myReverseDependencies.get(dependee).add(depender);
   }
 
@@ -281,15 +479,21 @@ public class LibraryManager {
    *
    * @param library the library to unload.
    */
-  public void unloadLibrary(Library library) {
+  public synchronized void unloadLibrary(Library library) {
     getClassLoader(library.isExternal()).removeDelegate(library);
     myFailedLibraries.remove(library);
     if (!myLoadingLibraries.isEmpty()) {
-      myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.stream().map(Library::getName)));
+      myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.keySet().stream().map(Library::getName)));
       return;
     }
 
-    Set<Library> dependencies = library.unload() ? myReverseDependencies.remove(library) : myReverseDependencies.get(library);
+    Set<Library> dependencies;
+    if (library.unload()) {
+      dependencies = myReverseDependencies.remove(library);
+      removeRegisteredLibraryName(library);
+    } else {
+      dependencies = myReverseDependencies.get(library);
+    }
     if (dependencies != null) {
       for (Library dependency : dependencies) {
         dependency.reset();
@@ -300,18 +504,24 @@ public class LibraryManager {
   /**
    * Unloads all libraries.
    */
-  public void unload() {
+  public synchronized void unload() {
     myFailedLibraries.clear();
     if (!myLoadingLibraries.isEmpty()) {
-      myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.stream().map(Library::getName)));
+      myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.keySet().stream().map(Library::getName)));
     }
 
-    myReverseDependencies.keySet().removeIf(Library::unload);
+    List<Library> unloaded = new ArrayList<>();
+    myReverseDependencies.keySet().removeIf(library -> library.unload() && unloaded.add(library));
+    for (Library library : unloaded) {
+      removeRegisteredLibraryName(library);
+    }
   }
 
   private void reloadLibraries(List<Library> libraries, Supplier<TypecheckingOrderingListener> supplier, boolean reloadExternal) {
-    if (!myLoadingLibraries.isEmpty()) {
-      myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.stream().map(Library::getName)));
+    synchronized (this) {
+      if (!myLoadingLibraries.isEmpty()) {
+        myLibraryErrorReporter.report(LibraryError.unloadDuringLoading(myLoadingLibraries.keySet().stream().map(Library::getName)));
+      }
     }
     if (libraries.isEmpty()) {
       return;
@@ -339,13 +549,18 @@ public class LibraryManager {
    */
   public void reloadInternalLibraries(Supplier<TypecheckingOrderingListener> typechecking) {
     List<Library> libraries = new ArrayList<>();
-    Iterator<Library> it = myReverseDependencies.keySet().iterator();
-    while (it.hasNext()) {
-      Library library = it.next();
-      if (!library.isExternal()) {
-        libraries.add(library);
-        it.remove();
-        myFailedLibraries.remove(library);
+    synchronized (this) {
+      Iterator<Library> it = myReverseDependencies.keySet().iterator();
+      while (it.hasNext()) {
+        Library library = it.next();
+        if (!library.isExternal()) {
+          libraries.add(library);
+          it.remove();
+          myFailedLibraries.remove(library);
+        }
+      }
+      for (Library library : libraries) {
+        removeRegisteredLibraryName(library);
       }
     }
 
@@ -358,9 +573,13 @@ public class LibraryManager {
    * @param typechecking  a typechecker for language extensions.
    */
   public void reload(Supplier<TypecheckingOrderingListener> typechecking) {
-    List<Library> libraries = new ArrayList<>(myReverseDependencies.keySet());
-    myFailedLibraries.clear();
-    myReverseDependencies.clear();
+    List<Library> libraries;
+    synchronized (this) {
+      libraries = new ArrayList<>(myReverseDependencies.keySet());
+      myFailedLibraries.clear();
+      myReverseDependencies.clear();
+      myLibrariesByName.clear();
+    }
     reloadLibraries(libraries, typechecking, true);
   }
 }
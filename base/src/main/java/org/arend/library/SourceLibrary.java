@@ -222,8 +222,9 @@ public abstract class SourceLibrary extends BaseLibrary {
     }
 
     Map<String, ArendExtension> dependenciesExtensions = new LinkedHashMap<>();
+    Map<String, Library> loadedDependencies = libraryManager.loadDependencies(this, header.dependencies, typechecking);
     for (LibraryDependency dependency : header.dependencies) {
-      Library loadedDependency = libraryManager.loadDependency(this, dependency.name, typechecking);
+      Library loadedDependency = loadedDependencies.containsKey(dependency.name) ? loadedDependencies.get(dependency.name) : libraryManager.loadDependency(this, dependency.name, typechecking);
       if (loadedDependency == null && !mustBeLoaded()) {
         classLoader.removeDelegate(this);
         return false;
@@ -235,7 +236,7 @@ public abstract class SourceLibrary extends BaseLibrary {
       }
     }
 
-    libraryManager.beforeLibraryLoading(this);
+    libraryManager.libraryLoadingStarted(this);
 
     try {
       Class<?> extMainClass = null;
@@ -293,14 +294,14 @@ public abstract class SourceLibrary extends BaseLibrary {
           if (!sourceLoader.loadBinary(module, keyRegistry, definitionListener) && isExternal()) {
             libraryManager.getLibraryErrorReporter().report(LibraryError.moduleLoading(module, getName()));
             if (!mustBeLoaded()) {
-              libraryManager.afterLibraryLoading(this, false);
+              libraryManager.libraryLoadingFinished(this, false);
               return false;
             }
           }
         }
       }
     } catch (Throwable e) {
-      libraryManager.afterLibraryLoading(this, false);
+      libraryManager.libraryLoadingFinished(this, false);
       throw e;
     }
 
@@ -308,13 +309,15 @@ public abstract class SourceLibrary extends BaseLibrary {
       myExtension.setDefinitionProvider(DefinitionProviderImpl.INSTANCE);
       ArendDependencyProviderImpl provider = new ArendDependencyProviderImpl(typechecking, libraryManager.getAvailableModuleScopeProvider(this), libraryManager.getDefinitionRequester(), this);
       try {
-        myExtension.load(provider);
+        synchronized (libraryManager.getExtensionLock()) {
+          myExtension.load(provider);
+        }
       } finally {
         provider.disable();
       }
     }
 
-    libraryManager.afterLibraryLoading(this, true);
+    libraryManager.libraryLoadingFinished(this, true);
 
     return super.load(libraryManager, typechecking);
   }
@@ -1,5 +1,19 @@
 package org.arend.library.classLoader;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+
 public interface ClassLoaderDelegate {
   byte[] findClass(String name) throws ClassNotFoundException;
+
+  /**
+   * Gets the packages of classes that can be found by this delegate.
+   * It is invoked once when the delegate is registered and is used to find the delegate of a class without probing others.
+   *
+   * @return the set of package names or null if the delegate should be asked about classes in every package.
+   */
+  default @Nullable Set<String> getPackages() {
+    return null;
+  }
 }
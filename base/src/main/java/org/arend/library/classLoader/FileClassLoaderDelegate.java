@@ -4,6 +4,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public class FileClassLoaderDelegate implements ClassLoaderDelegate {
   private final Path myRoot;
@@ -22,6 +25,26 @@ public class FileClassLoaderDelegate implements ClassLoaderDelegate {
     }
   }
 
+  @Override
+  public Set<String> getPackages() {
+    if (!Files.isDirectory(myRoot)) {
+      return null;
+    }
+
+    Set<String> packages = new HashSet<>();
+    try (Stream<Path> stream = Files.walk(myRoot)) {
+      stream.forEach(file -> {
+        if (file.getFileName().toString().endsWith(".class")) {
+          Path dir = myRoot.relativize(file).getParent();
+          packages.add(dir == null ? "" : dir.toString().replace(File.separatorChar, '.'));
+        }
+      });
+    } catch (IOException e) {
+      return null;
+    }
+    return packages;
+  }
+
   @Override
   public String toString() {
     return myRoot.toString();
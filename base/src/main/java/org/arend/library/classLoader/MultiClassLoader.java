@@ -1,32 +1,95 @@
 package org.arend.library.classLoader;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * Loads classes from several delegates.
+ * Delegates that report their packages are indexed, so a class is looked up only in delegates that may contain it.
+ */
 public class MultiClassLoader<T> extends ClassLoader {
   private final Map<T, ClassLoaderDelegate> myDelegates = new LinkedHashMap<>();
+  private final Map<ClassLoaderDelegate, Set<String>> myPackages = new HashMap<>();
+  private Map<String, List<ClassLoaderDelegate>> myPackageIndex = Collections.emptyMap();
+  private List<ClassLoaderDelegate> myUnindexedDelegates = Collections.emptyList();
+
+  static {
+    registerAsParallelCapable();
+  }
 
   public MultiClassLoader(ClassLoader parent) {
     super(parent);
   }
 
   public void addDelegate(T name, ClassLoaderDelegate delegate) {
-    myDelegates.put(name, delegate);
+    Set<String> packages = delegate.getPackages();
+    synchronized (myDelegates) {
+      ClassLoaderDelegate old = myDelegates.put(name, delegate);
+      if (old != null) {
+        myPackages.remove(old);
+      }
+      if (packages != null) {
+        myPackages.put(delegate, packages);
+      }
+      updateIndex();
+    }
   }
 
   public void removeDelegate(T name) {
-    myDelegates.remove(name);
+    synchronized (myDelegates) {
+      ClassLoaderDelegate delegate = myDelegates.remove(name);
+      if (delegate != null) {
+        myPackages.remove(delegate);
+        updateIndex();
+      }
+    }
+  }
+
+  private void updateIndex() {
+    Set<String> allPackages = new HashSet<>();
+    for (Set<String> packages : myPackages.values()) {
+      allPackages.addAll(packages);
+    }
+
+    // Every list preserves the order of delegates; unindexed delegates are included in all of them
+    Map<String, List<ClassLoaderDelegate>> index = new HashMap<>();
+    List<ClassLoaderDelegate> unindexed = new ArrayList<>();
+    for (ClassLoaderDelegate delegate : myDelegates.values()) {
+      Set<String> packages = myPackages.get(delegate);
+      if (packages == null) {
+        unindexed.add(delegate);
+      }
+      for (String pkg : packages == null ? allPackages : packages) {
+        index.computeIfAbsent(pkg, k -> new ArrayList<>()).add(delegate);
+      }
+    }
+
+    myPackageIndex = index;
+    myUnindexedDelegates = unindexed;
   }
 
   @Override
   protected Class<?> findClass(String name) throws ClassNotFoundException {
-    for (ClassLoaderDelegate delegate : myDelegates.values()) {
+    int index = name.lastIndexOf('.');
+    String pkg = index < 0 ? "" : name.substring(0, index);
+    List<ClassLoaderDelegate> delegates;
+    synchronized (myDelegates) {
+      delegates = myPackageIndex.get(pkg);
+      if (delegates == null) {
+        delegates = myUnindexedDelegates;
+      }
+    }
+
+    for (ClassLoaderDelegate delegate : delegates) {
       byte[] bytes = delegate.findClass(name);
       if (bytes != null) {
         return defineClass(name, bytes, 0, bytes.length);
       }
     }
-    throw new ClassNotFoundException("Cannot find class " + name + " in any of the following locations " + new ArrayList<>(myDelegates.values()) + " or in the classpath");
+
+    List<ClassLoaderDelegate> allDelegates;
+    synchronized (myDelegates) {
+      allDelegates = new ArrayList<>(myDelegates.values());
+    }
+    throw new ClassNotFoundException("Cannot find class " + name + " in any of the following locations " + allDelegates + " or in the classpath");
   }
 }
@@ -3,6 +3,9 @@ package org.arend.library.classLoader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -43,6 +46,32 @@ public class ZipClassLoaderDelegate implements ClassLoaderDelegate {
     }
   }
 
+  private Set<String> getPackages(ZipFile zipFile) {
+    Set<String> packages = new HashSet<>();
+    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      String name = entries.nextElement().getName();
+      if (name.startsWith(myPrefix) && name.endsWith(".class")) {
+        int index = name.lastIndexOf('/');
+        packages.add(index < myPrefix.length() ? "" : name.substring(myPrefix.length(), index).replace('/', '.'));
+      }
+    }
+    return packages;
+  }
+
+  @Override
+  public Set<String> getPackages() {
+    if (zipFile != null) {
+      return getPackages(zipFile);
+    }
+
+    try (ZipFile zipFile = new ZipFile(myFile)) {
+      return getPackages(zipFile);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   @Override
   public String toString() {
     return myFile.getName();
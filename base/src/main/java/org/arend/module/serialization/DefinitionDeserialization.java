@@ -1,6 +1,7 @@
 package org.arend.module.serialization;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import org.arend.core.context.LinkList;
 import org.arend.core.context.binding.Binding;
 import org.arend.core.context.param.DependentLink;
@@ -19,9 +20,11 @@ import org.arend.extImpl.SerializableKeyRegistryImpl;
 import org.arend.naming.reference.*;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
 import org.arend.util.Pair;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.util.*;
 
 public class DefinitionDeserialization implements ArendDeserializer {
@@ -29,16 +32,29 @@ public class DefinitionDeserialization implements ArendDeserializer {
   private final DependencyListener myDependencyListener;
   private final SerializableKeyRegistryImpl myKeyRegistry;
   private final DefinitionListener myDefinitionListener;
-
-  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) {
+  private final ExpressionTableDeserialization myExpressionTable;
+  private final boolean myLazyBodies;
+
+  /**
+   * @param expressionTable  the table of shared expressions of the module.
+   * @param lazyBodies       if true, bodies of functions are deserialized on the first access.
+   *                         Dependencies of bodies are recorded in the binary and reported to {@code dependencyListener} immediately.
+   */
+  DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener, ExpressionTableDeserialization expressionTable, boolean lazyBodies) {
     myCallTargetProvider = callTargetProvider;
     myDependencyListener = dependencyListener;
     myKeyRegistry = keyRegistry;
     myDefinitionListener = definitionListener;
+    myExpressionTable = expressionTable;
+    myLazyBodies = lazyBodies;
+  }
+
+  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) {
+    this(callTargetProvider, dependencyListener, keyRegistry, definitionListener, null, false);
   }
 
   public void fillInDefinition(DefinitionProtos.Definition defProto, Definition def) throws DeserializationException {
-    final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def.getReferable());
+    final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def.getReferable(), myExpressionTable);
 
     switch (defProto.getDefinitionDataCase()) {
       case CLASS:
@@ -376,6 +392,16 @@ public class DefinitionDeserialization implements ArendDeserializer {
     }
   }
 
+  private Body readBody(ExpressionDeserialization defDeserializer, ByteString bytes, int numberOfParameters) throws DeserializationException {
+    try {
+      CodedInputStream input = bytes.newCodedInput();
+      input.setRecursionLimit(Integer.MAX_VALUE);
+      return readBody(defDeserializer, DefinitionProtos.Body.parseFrom(input), numberOfParameters);
+    } catch (IOException e) {
+      throw new DeserializationException(e.getMessage());
+    }
+  }
+
   private ParametersLevel readParametersLevel(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.ParametersLevel proto) throws DeserializationException {
     return new ParametersLevel(proto.getHasParameters() ? defDeserializer.readParameters(proto.getParameterList()) : null, proto.getLevel());
   }
@@ -438,8 +464,25 @@ public class DefinitionDeserialization implements ArendDeserializer {
     }
     functionDef.setKind(kind);
     functionDef.setVisibleParameter(functionProto.getVisibleParameter());
-    if (functionProto.hasBody()) {
-      functionDef.setBody(readBody(defDeserializer, functionProto.getBody(), DependentLink.Helper.size(functionDef.getParameters())));
+    ByteString body = functionProto.getBody();
+    if (!body.isEmpty()) {
+      int numberOfParameters = DependentLink.Helper.size(functionDef.getParameters());
+      // The pattern of a defined constructor is read after the body and binding indices depend on this order
+      if (myLazyBodies && !(functionDef instanceof DConstructor)) {
+        for (int index : functionProto.getBodyDependencyList()) {
+          myDependencyListener.dependsOn(functionDef.getReferable(), myCallTargetProvider.getCallTarget(index).getReferable());
+        }
+        ExpressionDeserialization bodyDeserializer = defDeserializer.copy(DummyDependencyListener.INSTANCE);
+        functionDef.setLazyBody(() -> {
+          try {
+            return readBody(bodyDeserializer, body, numberOfParameters);
+          } catch (DeserializationException e) {
+            throw new IllegalStateException("Cannot deserialize the body of " + functionDef.getName() + ": " + e.getMessage(), e);
+          }
+        });
+      } else {
+        functionDef.setBody(readBody(defDeserializer, body, numberOfParameters));
+      }
     }
     // setTypeClassReference(functionDef.getReferable(), functionDef.getParameters(), functionDef.getResultType());
   }
@@ -6,9 +6,8 @@ import org.arend.core.definition.*;
 import org.arend.core.elimtree.Body;
 import org.arend.core.elimtree.ElimBody;
 import org.arend.core.elimtree.IntervalElim;
-import org.arend.core.expr.AbsExpression;
-import org.arend.core.expr.Expression;
-import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.VoidExpressionVisitor;
 import org.arend.core.pattern.BindingPattern;
 import org.arend.core.pattern.ConstructorExpressionPattern;
 import org.arend.core.pattern.EmptyPattern;
@@ -31,14 +30,18 @@ import java.util.*;
 public class DefinitionSerialization implements ArendSerializer {
   private final CallTargetIndexProvider myCallTargetIndexProvider;
   private final DependencyListener myDependencyListener;
+  private final ExpressionTableSerialization myExpressionTable;
+  private final StringTableSerialization myStringTable;
 
-  public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, DependencyListener dependencyListener) {
+  DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, DependencyListener dependencyListener, ExpressionTableSerialization expressionTable, StringTableSerialization stringTable) {
     myCallTargetIndexProvider = callTargetIndexProvider;
     myDependencyListener = dependencyListener;
+    myExpressionTable = expressionTable;
+    myStringTable = stringTable;
   }
 
   DefinitionProtos.Definition writeDefinition(Definition definition) {
-    final ExpressionSerialization defSerializer = new ExpressionSerialization(myCallTargetIndexProvider);
+    final ExpressionSerialization defSerializer = new ExpressionSerialization(myCallTargetIndexProvider, myExpressionTable);
 
     final DefinitionProtos.Definition.Builder out = DefinitionProtos.Definition.newBuilder();
     out.setUniverseKind(defSerializer.writeUniverseKind(definition.getUniverseKind()));
@@ -357,12 +360,42 @@ public class DefinitionSerialization implements ArendSerializer {
     builder.setKind(kind);
     builder.setVisibleParameter(definition.getVisibleParameter());
     if (definition.getReallyActualBody() != null) {
-      builder.setBody(writeBody(defSerializer, definition.getReallyActualBody()));
+      builder.setBody(writeBody(defSerializer, definition.getReallyActualBody()).toByteString());
+      BodyDependencyCollector collector = new BodyDependencyCollector();
+      collector.visitBody(definition.getReallyActualBody(), null);
+      for (Definition dependency : collector.myDependencies) {
+        builder.addBodyDependency(myCallTargetIndexProvider.getDefIndex(dependency));
+      }
     }
 
     return builder.build();
   }
 
+  /**
+   * Collects definitions that are reported as dependencies when a body is deserialized.
+   */
+  private static class BodyDependencyCollector extends VoidExpressionVisitor<Void> {
+    private final Set<Definition> myDependencies = new LinkedHashSet<>();
+
+    @Override
+    public Void visitDefCall(DefCallExpression expr, Void params) {
+      Definition definition = expr.getDefinition();
+      myDependencies.add(definition instanceof ClassField ? ((ClassField) definition).getParentClass() : definition);
+      return super.visitDefCall(expr, params);
+    }
+
+    @Override
+    protected void processConCall(ConCallExpression expr, Void params) {
+      myDependencies.add(expr.getDefinition().getDataType());
+    }
+
+    @Override
+    public Void visitTypeCoerce(TypeCoerceExpression expr, Void params) {
+      myDependencies.add(expr.getDefinition());
+      return super.visitTypeCoerce(expr, params);
+    }
+  }
+
   private DefinitionProtos.Definition.DConstructorData writeDConstructor(ExpressionSerialization defSerializer, DConstructor definition) {
     DefinitionProtos.Definition.DConstructorData.Builder builder = DefinitionProtos.Definition.DConstructorData.newBuilder();
     builder.setFunction(writeFunctionDefinition(defSerializer, definition));
@@ -424,7 +457,7 @@ public class DefinitionSerialization implements ArendSerializer {
   private DefinitionProtos.Referable writeReferable(Definition definition) {
     DefinitionProtos.Referable.Builder builder = DefinitionProtos.Referable.newBuilder();
     GlobalReferable referable = definition.getReferable();
-    builder.setName(referable.textRepresentation());
+    builder.setNameIndex(myStringTable.getIndex(referable.textRepresentation()));
     builder.setPrecedence(writePrecedence(referable.getPrecedence()));
     builder.setIndex(myCallTargetIndexProvider.getDefIndex(definition));
     return builder.build();
@@ -33,11 +33,22 @@ class ExpressionDeserialization {
 
   private final DependencyListener myDependencyListener;
   private final TCDefReferable myDefinition;
+  private final ExpressionTableDeserialization myExpressionTable;
 
-  ExpressionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, TCDefReferable definition) {
+  ExpressionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, TCDefReferable definition, ExpressionTableDeserialization expressionTable) {
     myCallTargetProvider = callTargetProvider;
     myDependencyListener = dependencyListener;
     myDefinition = definition;
+    myExpressionTable = expressionTable;
+  }
+
+  /**
+   * @return a deserializer with the same bindings that reports dependencies to {@code dependencyListener}.
+   */
+  ExpressionDeserialization copy(DependencyListener dependencyListener) {
+    ExpressionDeserialization result = new ExpressionDeserialization(myCallTargetProvider, dependencyListener, myDefinition, myExpressionTable);
+    result.myBindings.addAll(myBindings);
+    return result;
   }
 
   // Bindings
@@ -325,6 +336,11 @@ class ExpressionDeserialization {
         return readSmallInteger(proto.getSmallInteger());
       case BIG_INTEGER:
         return readBigInteger(proto.getBigInteger());
+      case SHARED:
+        if (myExpressionTable == null) {
+          throw new DeserializationException("Reference to a shared expression without the expression table");
+        }
+        return myExpressionTable.read(proto.getShared(), myDependencyListener, myDefinition);
       default:
         throw new DeserializationException("Unknown Expression kind: " + proto.getKindCase());
     }
@@ -407,7 +423,7 @@ class ExpressionDeserialization {
     ClassDefinition classDefinition = myCallTargetProvider.getCallTarget(proto.getClassRef(), ClassDefinition.class);
     myDependencyListener.dependsOn(myDefinition, classDefinition.getReferable());
 
-    Map<ClassField, Expression> fieldSet = new HashMap<>();
+    Map<ClassField, Expression> fieldSet = new ClassFieldMap<>(classDefinition);
     ClassCallExpression classCall = new ClassCallExpression(classDefinition, new LevelPair(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), fieldSet, readSort(proto.getSort()), readUniverseKind(proto.getUniverseKind()));
     registerBinding(classCall.getThisBinding());
     for (Map.Entry<Integer, ExpressionProtos.Expression> entry : proto.getFieldSetMap().entrySet()) {
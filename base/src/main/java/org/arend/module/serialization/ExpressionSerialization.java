@@ -32,9 +32,31 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   private final CallTargetIndexProvider myCallTargetIndexProvider;
   private final Map<Binding, Integer> myBindingsMap = new HashMap<>();
   private int myIndex;
+  private final ExpressionTableSerialization myExpressionTable;
+  private final boolean myClosed;
+  private Expression myInlineExpression;
 
-  ExpressionSerialization(CallTargetIndexProvider callTargetIndexProvider) {
+  static class NotClosedException extends RuntimeException {
+    NotClosedException() {
+      super(null, null, false, false);
+    }
+  }
+
+  ExpressionSerialization(CallTargetIndexProvider callTargetIndexProvider, ExpressionTableSerialization expressionTable) {
     myCallTargetIndexProvider = callTargetIndexProvider;
+    myExpressionTable = expressionTable;
+    myClosed = false;
+  }
+
+  /**
+   * Creates a serializer for an entry of the expression table.
+   * It throws {@link NotClosedException} if {@code expression} has free variables.
+   */
+  ExpressionSerialization(CallTargetIndexProvider callTargetIndexProvider, ExpressionTableSerialization expressionTable, Expression expression) {
+    myCallTargetIndexProvider = callTargetIndexProvider;
+    myExpressionTable = expressionTable;
+    myClosed = true;
+    myInlineExpression = expression;
   }
 
   // Bindings
@@ -61,6 +83,9 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     } else {
       Integer ref = myBindingsMap.get(binding);
       if (ref == null) {
+        if (myClosed) {
+          throw new NotClosedException();
+        }
         throw new IllegalStateException();
       }
       return ref + 1;  // zero is reserved for null
@@ -171,6 +196,18 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     return expr.accept(this, null);
   }
 
+  private ExpressionProtos.Expression writeShared(Expression expr) {
+    if (myExpressionTable == null) {
+      return null;
+    }
+    if (expr == myInlineExpression) {
+      myInlineExpression = null;
+      return null;
+    }
+    int index = myExpressionTable.getIndex(expr);
+    return index < 0 ? null : ExpressionProtos.Expression.newBuilder().setShared(index).build();
+  }
+
   ExpressionProtos.Pattern writePattern(Pattern pattern) {
     ExpressionProtos.Pattern.Builder builder = ExpressionProtos.Pattern.newBuilder();
     if (pattern instanceof BindingPattern) {
@@ -312,11 +349,20 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
 
   @Override
   public ExpressionProtos.Expression visitFunCall(FunCallExpression expr, Void params) {
+    ExpressionProtos.Expression shared = writeShared(expr);
+    if (shared != null) {
+      return shared;
+    }
     return ExpressionProtos.Expression.newBuilder().setFunCall(writeFunCall(expr)).build();
   }
 
   @Override
   public ExpressionProtos.Expression visitConCall(ConCallExpression expr, Void params) {
+    ExpressionProtos.Expression shared = writeShared(expr);
+    if (shared != null) {
+      return shared;
+    }
+
     ExpressionProtos.Expression.ConCalls.Builder builders = ExpressionProtos.Expression.ConCalls.newBuilder();
 
     while (true) {
@@ -356,6 +402,11 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
 
   @Override
   public ExpressionProtos.Expression visitDataCall(DataCallExpression expr, Void params) {
+    ExpressionProtos.Expression shared = writeShared(expr);
+    if (shared != null) {
+      return shared;
+    }
+
     ExpressionProtos.Expression.DataCall.Builder builder = ExpressionProtos.Expression.DataCall.newBuilder();
     builder.setDataRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
     builder.setPLevel(writeLevel(expr.getPLevel()));
@@ -394,6 +445,10 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
 
   @Override
   public ExpressionProtos.Expression visitClassCall(ClassCallExpression expr, Void params) {
+    ExpressionProtos.Expression shared = writeShared(expr);
+    if (shared != null) {
+      return shared;
+    }
     return ExpressionProtos.Expression.newBuilder().setClassCall(writeClassCall(expr)).build();
   }
 
@@ -0,0 +1,100 @@
+package org.arend.module.serialization;
+
+import org.arend.core.expr.ClassCallExpression;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.VoidExpressionVisitor;
+import org.arend.ext.serialization.DeserializationException;
+import org.arend.naming.reference.TCReferable;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+
+import java.util.*;
+
+/**
+ * Reads expressions of the table of a module on demand.
+ * An expression is read once and shared between all occurrences unless it contains a class call.
+ * Since class calls can be modified, such expressions are read again for every occurrence.
+ */
+class ExpressionTableDeserialization {
+  private final CallTargetProvider myCallTargetProvider;
+  private final List<ExpressionProtos.Expression> myProtos;
+  private final Expression[] myExpressions;
+  private final boolean[] myMutable;
+  private final List<Set<TCReferable>> myDependencies;
+
+  ExpressionTableDeserialization(CallTargetProvider callTargetProvider, ExpressionProtos.ExpressionTable proto) {
+    myCallTargetProvider = callTargetProvider;
+    myProtos = proto.getExpressionList();
+    myExpressions = new Expression[myProtos.size()];
+    myMutable = new boolean[myProtos.size()];
+    myDependencies = new ArrayList<>(Collections.nCopies(myProtos.size(), null));
+  }
+
+  /**
+   * Reads an expression from the table and reports its dependencies as dependencies of {@code definition}.
+   */
+  synchronized Expression read(int index, DependencyListener dependencyListener, TCReferable definition) throws DeserializationException {
+    if (index < 0 || index >= myExpressions.length) {
+      throw new DeserializationException("Shared expression index is out of bounds");
+    }
+
+    Expression expr = myExpressions[index];
+    if (expr == null) {
+      if (myMutable[index]) {
+        expr = new ExpressionDeserialization(myCallTargetProvider, DummyDependencyListener.INSTANCE, null, this).readExpr(myProtos.get(index));
+      } else {
+        if (myDependencies.get(index) != null) {
+          throw new DeserializationException("Cyclic reference to a shared expression");
+        }
+        Set<TCReferable> dependencies = new LinkedHashSet<>();
+        myDependencies.set(index, dependencies);
+        expr = new ExpressionDeserialization(myCallTargetProvider, new DependencyRecorder(dependencies), null, this).readExpr(myProtos.get(index));
+        if (containsClassCall(expr)) {
+          myMutable[index] = true;
+        } else {
+          myExpressions[index] = expr;
+        }
+      }
+    }
+
+    for (TCReferable dependency : myDependencies.get(index)) {
+      dependencyListener.dependsOn(definition, dependency);
+    }
+    return expr;
+  }
+
+  private static boolean containsClassCall(Expression expr) {
+    boolean[] found = new boolean[1];
+    expr.accept(new VoidExpressionVisitor<Void>() {
+      @Override
+      public Void visitClassCall(ClassCallExpression expr, Void params) {
+        found[0] = true;
+        return null;
+      }
+    }, null);
+    return found[0];
+  }
+
+  private static class DependencyRecorder implements DependencyListener {
+    private final Set<TCReferable> myDependencies;
+
+    private DependencyRecorder(Set<TCReferable> dependencies) {
+      myDependencies = dependencies;
+    }
+
+    @Override
+    public void dependsOn(TCReferable def1, TCReferable def2) {
+      myDependencies.add(def2);
+    }
+
+    @Override
+    public Set<? extends TCReferable> update(TCReferable definition) {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<? extends TCReferable> getDependencies(TCReferable definition) {
+      return myDependencies;
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package org.arend.module.serialization;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.*;
+import org.arend.core.expr.*;
+import org.arend.core.expr.let.HaveClause;
+import org.arend.core.expr.visitor.VoidExpressionVisitor;
+import org.arend.core.sort.Level;
+import org.arend.core.subst.LevelPair;
+
+import java.util.*;
+
+/**
+ * Collects closed definition calls of a module that occur more than once so that equal calls are serialized only once.
+ * Definitions are first analyzed by {@link #collect}, which finds closed calls and computes their structural hashes
+ * in a single bottom-up pass. Then {@link #getIndex} puts a call into the table if its hash occurs more than once.
+ */
+class ExpressionTableSerialization {
+  private final CallTargetIndexProvider myCallTargetIndexProvider;
+  private final List<ExpressionProtos.Expression> myExpressions = new ArrayList<>();
+  private final Map<ExpressionProtos.Expression, Integer> myProtoIndices = new HashMap<>();
+  private final Map<Expression, Integer> myIndices = new IdentityHashMap<>();
+  private final Map<Expression, Integer> myClosedCalls = new IdentityHashMap<>();
+  private final Map<Integer, Integer> myHashCounts = new HashMap<>();
+
+  ExpressionTableSerialization(CallTargetIndexProvider callTargetIndexProvider) {
+    myCallTargetIndexProvider = callTargetIndexProvider;
+  }
+
+  /**
+   * Finds closed calls in a definition that is going to be serialized.
+   */
+  void collect(Definition definition) {
+    ClosedCallsCollector collector = new ClosedCallsCollector();
+    collector.visitParameters(definition.getParameters(), null);
+    if (definition instanceof FunctionDefinition) {
+      FunctionDefinition function = (FunctionDefinition) definition;
+      collector.visit(function.getResultType());
+      collector.visit(function.getResultTypeLevel());
+      if (function.isBodyLoaded()) {
+        collector.visitBody(function.getReallyActualBody(), null);
+      }
+    } else if (definition instanceof DataDefinition) {
+      for (Constructor constructor : ((DataDefinition) definition).getConstructors()) {
+        collector.visitParameters(constructor.getParameters(), null);
+        collector.visitBody(constructor.getBody(), null);
+      }
+    } else if (definition instanceof ClassDefinition) {
+      ClassDefinition classDef = (ClassDefinition) definition;
+      for (ClassField field : classDef.getPersonalFields()) {
+        collector.visit(field.getType(LevelPair.STD));
+        collector.visit(field.getTypeLevel());
+      }
+      for (Map.Entry<ClassField, AbsExpression> entry : classDef.getImplemented()) {
+        collector.visit(entry.getValue().getExpression());
+      }
+      for (Map.Entry<ClassField, AbsExpression> entry : classDef.getDefaults()) {
+        collector.visit(entry.getValue().getExpression());
+      }
+      for (Map.Entry<ClassField, PiExpression> entry : classDef.getOverriddenFields()) {
+        collector.visit(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * @return the index of the expression in the table or -1 if it should be serialized inline.
+   */
+  int getIndex(Expression expr) {
+    Integer index = myIndices.get(expr);
+    if (index != null) {
+      return index;
+    }
+    Integer hash = myClosedCalls.get(expr);
+    if (hash == null || myHashCounts.get(hash) < 2) {
+      return -1;
+    }
+
+    ExpressionProtos.Expression proto;
+    try {
+      proto = expr.accept(new ExpressionSerialization(myCallTargetIndexProvider, this, expr), null);
+    } catch (ExpressionSerialization.NotClosedException e) {
+      myClosedCalls.remove(expr);
+      return -1;
+    }
+
+    index = myProtoIndices.get(proto);
+    if (index == null) {
+      index = myExpressions.size();
+      myExpressions.add(proto);
+      myProtoIndices.put(proto, index);
+    }
+    myIndices.put(expr, index);
+    return index;
+  }
+
+  ExpressionProtos.ExpressionTable write() {
+    return ExpressionProtos.ExpressionTable.newBuilder().addAllExpression(myExpressions).build();
+  }
+
+  /**
+   * Finds calls without free variables and computes their structural hashes.
+   * Bindings are numbered in the order in which they are introduced, so a call is closed
+   * if it refers only to bindings with numbers not less than the number of the first binding introduced in it.
+   * References are hashed by the distance to their bindings, so the hash of a call does not depend on its context.
+   * Equal hashes do not guarantee that calls are equal; they are compared when the table is written.
+   */
+  private class ClosedCallsCollector extends VoidExpressionVisitor<Void> {
+    private final Map<Binding, Integer> myBindings = new HashMap<>();
+    private int myBindingCounter;
+    private int myMinBinding = Integer.MAX_VALUE;
+    private int myHash;
+
+    void visit(Expression expr) {
+      if (expr != null) {
+        expr.accept(this, null);
+      }
+    }
+
+    private void register(Binding binding) {
+      myBindings.put(binding, myBindingCounter++);
+    }
+
+    private void mix(int value) {
+      myHash = myHash * 31 + value;
+    }
+
+    private void mixLevel(Level level) {
+      mix(level.getVar() == null ? 0 : level.getVar().hashCode());
+      mix(level.getConstant());
+      mix(level.getMaxConstant());
+    }
+
+    private void visitCall(DefCallExpression expr, Runnable visitor) {
+      int firstBinding = myBindingCounter;
+      int minBinding = myMinBinding;
+      int hash = myHash;
+      myMinBinding = Integer.MAX_VALUE;
+      myHash = expr.getDefinition().hashCode();
+      mixLevel(expr.getPLevel());
+      mixLevel(expr.getHLevel());
+
+      visitor.run();
+
+      int callHash = myHash;
+      if (myMinBinding >= firstBinding) {
+        myClosedCalls.put(expr, callHash);
+        myHashCounts.merge(callHash, 1, Integer::sum);
+      }
+      myMinBinding = Math.min(minBinding, myMinBinding);
+      myHash = hash;
+      mix(callHash);
+    }
+
+    @Override
+    public void visitParameters(DependentLink link, Void params) {
+      for (; link.hasNext(); link = link.getNext()) {
+        DependentLink typed = link.getNextTyped(null);
+        typed.getTypeExpr().accept(this, params);
+        for (; link != typed; link = link.getNext()) {
+          register(link);
+        }
+        register(typed);
+      }
+    }
+
+    @Override
+    public Void visitFunCall(FunCallExpression expr, Void params) {
+      visitCall(expr, () -> super.visitFunCall(expr, params));
+      return null;
+    }
+
+    @Override
+    public Void visitConCall(ConCallExpression expr, Void params) {
+      visitCall(expr, () -> super.visitConCall(expr, params));
+      return null;
+    }
+
+    @Override
+    public Void visitDataCall(DataCallExpression expr, Void params) {
+      visitCall(expr, () -> super.visitDataCall(expr, params));
+      return null;
+    }
+
+    @Override
+    public Void visitClassCall(ClassCallExpression expr, Void params) {
+      visitCall(expr, () -> {
+        register(expr.getThisBinding());
+        for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
+          mix(entry.getKey().hashCode());
+          entry.getValue().accept(this, params);
+        }
+      });
+      return null;
+    }
+
+    @Override
+    public Void visitFieldCall(FieldCallExpression expr, Void params) {
+      mix(expr.getDefinition().hashCode());
+      return super.visitFieldCall(expr, params);
+    }
+
+    @Override
+    public Void visitReference(ReferenceExpression expr, Void params) {
+      Integer binding = myBindings.get(expr.getBinding());
+      if (binding == null) {
+        myMinBinding = -1;
+        mix(-1);
+      } else {
+        myMinBinding = Math.min(myMinBinding, binding);
+        mix(myBindingCounter - binding);
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitApp(AppExpression expr, Void params) {
+      mix(expr.isExplicit() ? 1 : 2);
+      return super.visitApp(expr, params);
+    }
+
+    @Override
+    public Void visitLam(LamExpression expr, Void params) {
+      mix(3);
+      return super.visitLam(expr, params);
+    }
+
+    @Override
+    public Void visitPi(PiExpression expr, Void params) {
+      mix(4);
+      return super.visitPi(expr, params);
+    }
+
+    @Override
+    public Void visitSigma(SigmaExpression expr, Void params) {
+      mix(5);
+      return super.visitSigma(expr, params);
+    }
+
+    @Override
+    public Void visitProj(ProjExpression expr, Void params) {
+      mix(6 + expr.getField());
+      return super.visitProj(expr, params);
+    }
+
+    @Override
+    public Void visitInteger(IntegerExpression expr, Void params) {
+      mix(expr.getSmallInteger());
+      return null;
+    }
+
+    @Override
+    public Void visitUniverse(UniverseExpression expr, Void params) {
+      mixLevel(expr.getSort().getPLevel());
+      mixLevel(expr.getSort().getHLevel());
+      return null;
+    }
+
+    @Override
+    public Void visitLet(LetExpression expr, Void params) {
+      for (HaveClause clause : expr.getClauses()) {
+        clause.getExpression().accept(this, params);
+        register(clause);
+      }
+      expr.getExpression().accept(this, params);
+      return null;
+    }
+  }
+}
@@ -26,25 +26,66 @@ public class ModuleDeserialization {
   private final List<Pair<DefinitionProtos.Definition, Definition>> myDefinitions = new ArrayList<>();
   private final SerializableKeyRegistryImpl myKeyRegistry;
   private final DefinitionListener myDefinitionListener;
+  private final String[] myStrings;
+
+  /**
+   * @throws DeserializationException if the module was written by a different version of the serializer.
+   *                                  It is checked here since indices into the string table cannot be trusted otherwise.
+   */
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, ReferableConverter referableConverter, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) throws DeserializationException {
+    if (moduleProto.getVersion() != ModuleSerialization.VERSION) {
+      throw new DeserializationException("Version mismatch");
+    }
 
-  public ModuleDeserialization(ModuleProtos.Module moduleProto, ReferableConverter referableConverter, SerializableKeyRegistryImpl keyRegistry, DefinitionListener definitionListener) {
     myModuleProto = moduleProto;
     myReferableConverter = referableConverter;
     myKeyRegistry = keyRegistry;
     myDefinitionListener = definitionListener;
+
+    // Names are interned so that modules share them
+    myStrings = new String[moduleProto.getStringTableCount()];
+    for (int i = 0; i < myStrings.length; i++) {
+      myStrings[i] = moduleProto.getStringTable(i).intern();
+    }
   }
 
   public ModuleProtos.Module getModuleProto() {
     return myModuleProto;
   }
 
-  public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener) throws DeserializationException {
-    if (myModuleProto.getVersion() != ModuleSerialization.VERSION) {
-      throw new DeserializationException("Version mismatch");
+  private String getString(int index) throws DeserializationException {
+    if (index < 0 || index >= myStrings.length) {
+      throw new DeserializationException("String index is out of bounds");
+    }
+    return myStrings[index];
+  }
+
+  private ModulePath readModulePath(ModuleProtos.ModuleCallTargets proto) throws DeserializationException {
+    List<String> names = new ArrayList<>(proto.getNameIndexCount());
+    for (Integer index : proto.getNameIndexList()) {
+      names.add(getString(index));
     }
+    return new ModulePath(names);
+  }
+
+  /**
+   * @return modules that contain definitions referred to from this module.
+   */
+  public List<ModulePath> getCallTargetModules() throws DeserializationException {
+    List<ModulePath> result = new ArrayList<>(myModuleProto.getModuleCallTargetsCount());
+    for (ModuleProtos.ModuleCallTargets moduleCallTargets : myModuleProto.getModuleCallTargetsList()) {
+      result.add(readModulePath(moduleCallTargets));
+    }
+    return result;
+  }
+
+  public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener) throws DeserializationException {
+    readModule(moduleScopeProvider, dependencyListener, false);
+  }
 
+  public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener, boolean lazyBodies) throws DeserializationException {
     for (ModuleProtos.ModuleCallTargets moduleCallTargets : myModuleProto.getModuleCallTargetsList()) {
-      ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+      ModulePath module = readModulePath(moduleCallTargets);
       Scope scope = moduleScopeProvider.forModule(module);
       if (scope == null) {
         throw new DeserializationException("Cannot find module: " + module);
@@ -55,7 +96,7 @@ public class ModuleDeserialization {
       }
     }
 
-    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, myKeyRegistry, myDefinitionListener);
+    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, myKeyRegistry, myDefinitionListener, new ExpressionTableDeserialization(myCallTargetProvider, myModuleProto.getExpressionTable()), lazyBodies);
     for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
       defDeserialization.fillInDefinition(pair.proj1, pair.proj2);
     }
@@ -63,33 +104,34 @@ public class ModuleDeserialization {
   }
 
   private void fillInCallTargetTree(String parentName, ModuleProtos.CallTargetTree callTargetTree, Scope scope, ModulePath module) throws DeserializationException {
+    String name = getString(callTargetTree.getNameIndex());
     if (callTargetTree.getIndex() > 0) {
-      Referable referable1 = scope.resolveName(callTargetTree.getName());
+      Referable referable1 = scope.resolveName(name);
       TCReferable referable = myReferableConverter == null
         ? (referable1 instanceof TCReferable ? (TCReferable) referable1 : null)
         : (referable1 instanceof LocatedReferable ? myReferableConverter.toDataLocatedReferable((LocatedReferable) referable1) : null);
       if (referable == null && module.equals(Prelude.MODULE_PATH) && "Fin".equals(parentName)) {
-        if (callTargetTree.getName().equals("zero")) {
+        if (name.equals("zero")) {
           referable = Prelude.FIN_ZERO.getReferable();
-        } else if (callTargetTree.getName().equals("suc")) {
+        } else if (name.equals("suc")) {
           referable = Prelude.FIN_SUC.getReferable();
         }
       }
       if (referable == null) {
-        throw new DeserializationException("Cannot resolve reference '" + callTargetTree.getName() + "' in " + module);
+        throw new DeserializationException("Cannot resolve reference '" + name + "' in " + module);
       }
       myCallTargetProvider.putCallTarget(callTargetTree.getIndex(), referable);
     }
 
     List<ModuleProtos.CallTargetTree> subtreeList = callTargetTree.getSubtreeList();
     if (!subtreeList.isEmpty()) {
-      Scope subscope = scope.resolveNamespace(callTargetTree.getName(), true);
+      Scope subscope = scope.resolveNamespace(name, true);
       if (subscope == null) {
-        throw new DeserializationException("Cannot resolve reference '" + callTargetTree.getName() + "' in " + module);
+        throw new DeserializationException("Cannot resolve reference '" + name + "' in " + module);
       }
 
       for (ModuleProtos.CallTargetTree tree : subtreeList) {
-        fillInCallTargetTree(callTargetTree.getName(), tree, subscope, module);
+        fillInCallTargetTree(name, tree, subscope, module);
       }
     }
   }
@@ -119,7 +161,7 @@ public class ModuleDeserialization {
       if (!fields.isEmpty()) {
         Map<String, DefinitionProtos.Definition.ClassData.Field> fieldMap = new HashMap<>();
         for (DefinitionProtos.Definition.ClassData.Field field : groupProto.getDefinition().getClass_().getPersonalFieldList()) {
-          fieldMap.put(field.getReferable().getName(), field);
+          fieldMap.put(getString(field.getReferable().getNameIndex()), field);
         }
 
         for (Group.InternalReferable field : fields) {
@@ -145,7 +187,7 @@ public class ModuleDeserialization {
       if (!constructors.isEmpty()) {
         Map<String, DefinitionProtos.Definition.DataData.Constructor> constructorMap = new HashMap<>();
         for (DefinitionProtos.Definition.DataData.Constructor constructor : groupProto.getDefinition().getData().getConstructorList()) {
-          constructorMap.put(constructor.getReferable().getName(), constructor);
+          constructorMap.put(getString(constructor.getReferable().getNameIndex()), constructor);
         }
 
         for (Group.InternalReferable constructor : constructors) {
@@ -172,7 +214,7 @@ public class ModuleDeserialization {
     if (!groupProto.getSubgroupList().isEmpty() && !subgroups.isEmpty()) {
       Map<String, ModuleProtos.Group> subgroupMap = new HashMap<>();
       for (ModuleProtos.Group subgroup : groupProto.getSubgroupList()) {
-        subgroupMap.put(subgroup.getReferable().getName(), subgroup);
+        subgroupMap.put(getString(subgroup.getReferable().getNameIndex()), subgroup);
       }
       for (Group subgroup : subgroups) {
         ModuleProtos.Group subgroupProto = subgroupMap.get(subgroup.getReferable().textRepresentation());
@@ -186,7 +228,7 @@ public class ModuleDeserialization {
     if (!groupProto.getDynamicSubgroupList().isEmpty() && !dynSubgroups.isEmpty()) {
       Map<String, ModuleProtos.Group> subgroupMap = new HashMap<>();
       for (ModuleProtos.Group subgroup : groupProto.getDynamicSubgroupList()) {
-        subgroupMap.put(subgroup.getReferable().getName(), subgroup);
+        subgroupMap.put(getString(subgroup.getReferable().getNameIndex()), subgroup);
       }
       for (Group subgroup : dynSubgroups) {
         ModuleProtos.Group subgroupProto = subgroupMap.get(subgroup.getReferable().textRepresentation());
@@ -226,14 +268,14 @@ public class ModuleDeserialization {
     if (groupProto.hasDefinition() && kind == GlobalReferable.Kind.CLASS) {
       dynamicReferables = new ArrayList<>();
       fieldReferables = new ArrayList<>();
-      referable = new ClassReferableImpl(readPrecedence(referableProto.getPrecedence()), referableProto.getName(), groupProto.getDefinition().getClass_().getIsRecord(), new ArrayList<>(), fieldReferables, dynamicReferables, modulePath);
+      referable = new ClassReferableImpl(readPrecedence(referableProto.getPrecedence()), getString(referableProto.getNameIndex()), groupProto.getDefinition().getClass_().getIsRecord(), new ArrayList<>(), fieldReferables, dynamicReferables, modulePath);
     } else {
       dynamicReferables = null;
       fieldReferables = new ArrayList<>(0);
       if (parent == null) {
         referable = new FullModuleReferable(modulePath);
       } else {
-        referable = new LocatedReferableImpl(readPrecedence(referableProto.getPrecedence()), referableProto.getName(), parent.getReferable(), kind);
+        referable = new LocatedReferableImpl(readPrecedence(referableProto.getPrecedence()), getString(referableProto.getNameIndex()), parent.getReferable(), kind);
       }
     }
 
@@ -303,7 +345,7 @@ public class ModuleDeserialization {
         if (fillInternalDefinitions) {
           for (DefinitionProtos.Definition.ClassData.Field fieldProto : defProto.getClass_().getPersonalFieldList()) {
             DefinitionProtos.Referable fieldReferable = fieldProto.getReferable();
-            TCFieldReferable absField = new FieldReferableImpl(readPrecedence(fieldReferable.getPrecedence()), fieldReferable.getName(), fieldProto.getIsExplicit(), fieldProto.getIsParameter(), referable);
+            TCFieldReferable absField = new FieldReferableImpl(readPrecedence(fieldReferable.getPrecedence()), getString(fieldReferable.getNameIndex()), fieldProto.getIsExplicit(), fieldProto.getIsParameter(), referable);
             ClassField res = new ClassField(absField, classDef);
             classDef.addPersonalField(res);
             absField.setTypechecked(res);
@@ -317,7 +359,7 @@ public class ModuleDeserialization {
         if (fillInternalDefinitions) {
           for (DefinitionProtos.Definition.DataData.Constructor constructor : defProto.getData().getConstructorList()) {
             DefinitionProtos.Referable conReferable = constructor.getReferable();
-            TCDefReferable absConstructor = new LocatedReferableImpl(readPrecedence(conReferable.getPrecedence()), conReferable.getName(), referable, LocatedReferableImpl.Kind.CONSTRUCTOR);
+            TCDefReferable absConstructor = new LocatedReferableImpl(readPrecedence(conReferable.getPrecedence()), getString(conReferable.getNameIndex()), referable, LocatedReferableImpl.Kind.CONSTRUCTOR);
             Constructor res = new Constructor(absConstructor, dataDef);
             dataDef.addConstructor(res);
             absConstructor.setTypechecked(res);
@@ -17,25 +17,31 @@ import java.util.*;
 public class ModuleSerialization {
   private final ErrorReporter myErrorReporter;
   private final SimpleCallTargetIndexProvider myCallTargetIndexProvider = new SimpleCallTargetIndexProvider();
+  private final ExpressionTableSerialization myExpressionTable = new ExpressionTableSerialization(myCallTargetIndexProvider);
+  private final StringTableSerialization myStringTable = new StringTableSerialization();
   private final DefinitionSerialization myDefinitionSerialization;
   private final Set<Integer> myCurrentDefinitions = new HashSet<>();
   private boolean myComplete;
 
-  static final int VERSION = 8;
+  static final int VERSION = 15;
 
   public ModuleSerialization(ErrorReporter errorReporter, DependencyListener dependencyListener) {
     myErrorReporter = errorReporter;
-    myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider, dependencyListener);
+    myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider, dependencyListener, myExpressionTable, myStringTable);
   }
 
   public ModuleProtos.Module writeModule(Group group, ModulePath modulePath, ReferableConverter referableConverter) {
     ModuleProtos.Module.Builder out = ModuleProtos.Module.newBuilder();
 
+    // Find calls that can be shared before definitions are written
+    collectSharedCalls(group, referableConverter);
+
     // Serialize the group structure first in order to populate the call target tree
     myComplete = true;
     out.setVersion(VERSION);
     out.setGroup(writeGroup(group, referableConverter));
     out.setComplete(myComplete);
+    out.setExpressionTable(myExpressionTable.write());
 
     // Now write the call target tree
     Map<ModulePath, Map<String, CallTargetTree>> moduleCallTargets = new HashMap<>();
@@ -64,28 +70,49 @@ public class ModuleSerialization {
 
     for (Map.Entry<ModulePath, Map<String, CallTargetTree>> entry : moduleCallTargets.entrySet()) {
       ModuleProtos.ModuleCallTargets.Builder builder = ModuleProtos.ModuleCallTargets.newBuilder();
-      builder.addAllName(entry.getKey().toList());
+      for (String name : entry.getKey().toList()) {
+        builder.addNameIndex(myStringTable.getIndex(name));
+      }
       for (Map.Entry<String, CallTargetTree> treeEntry : entry.getValue().entrySet()) {
         builder.addCallTargetTree(writeCallTargetTree(treeEntry.getKey(), treeEntry.getValue()));
       }
       out.addModuleCallTargets(builder.build());
     }
 
+    out.addAllStringTable(myStringTable.getStrings());
     return out.build();
   }
 
+  private static Definition getSerializedDefinition(TCReferable referable) {
+    Definition typechecked = referable instanceof TCDefReferable ? ((TCDefReferable) referable).getTypechecked() : null;
+    return typechecked != null && typechecked.status() == Definition.TypeCheckingStatus.NO_ERRORS && !(typechecked instanceof Constructor || typechecked instanceof ClassField) ? typechecked : null;
+  }
+
+  private void collectSharedCalls(Group group, ReferableConverter referableConverter) {
+    Definition definition = getSerializedDefinition(referableConverter.toDataLocatedReferable(group.getReferable()));
+    if (definition != null) {
+      myExpressionTable.collect(definition);
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      collectSharedCalls(subgroup, referableConverter);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      collectSharedCalls(subgroup, referableConverter);
+    }
+  }
+
   private ModuleProtos.Group writeGroup(Group group, ReferableConverter referableConverter) {
     ModuleProtos.Group.Builder builder = ModuleProtos.Group.newBuilder();
 
     // Write referable
     LocatedReferable referable = group.getReferable();
     DefinitionProtos.Referable.Builder refBuilder = DefinitionProtos.Referable.newBuilder();
-    refBuilder.setName(referable instanceof ModuleReferable ? ((ModuleReferable) referable).path.getLastName() : referable.textRepresentation());
+    refBuilder.setNameIndex(myStringTable.getIndex(referable instanceof ModuleReferable ? ((ModuleReferable) referable).path.getLastName() : referable.textRepresentation()));
     refBuilder.setPrecedence(DefinitionSerialization.writePrecedence(referable.getPrecedence()));
 
     TCReferable tcReferable = referableConverter.toDataLocatedReferable(referable);
     Definition typechecked = tcReferable instanceof TCDefReferable ? ((TCDefReferable) tcReferable).getTypechecked() : null;
-    if (typechecked != null && typechecked.status() == Definition.TypeCheckingStatus.NO_ERRORS && !(typechecked instanceof Constructor || typechecked instanceof ClassField)) {
+    if (getSerializedDefinition(tcReferable) != null) {
       builder.setDefinition(myDefinitionSerialization.writeDefinition(typechecked));
       int index = myCallTargetIndexProvider.getDefIndex(typechecked);
       refBuilder.setIndex(index);
@@ -127,7 +154,7 @@ public class ModuleSerialization {
 
   private ModuleProtos.CallTargetTree writeCallTargetTree(String name, CallTargetTree tree) {
     ModuleProtos.CallTargetTree.Builder builder = ModuleProtos.CallTargetTree.newBuilder();
-    builder.setName(name);
+    builder.setNameIndex(myStringTable.getIndex(name));
     builder.setIndex(tree.index);
     for (Map.Entry<String, CallTargetTree> entry : tree.subtreeMap.entrySet()) {
       builder.addSubtree(writeCallTargetTree(entry.getKey(), entry.getValue()));
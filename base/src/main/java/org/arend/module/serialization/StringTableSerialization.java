@@ -0,0 +1,22 @@
+package org.arend.module.serialization;
+
+import java.util.*;
+
+/**
+ * Collects names of a module so that every name is serialized only once.
+ */
+class StringTableSerialization {
+  private final List<String> myStrings = new ArrayList<>();
+  private final Map<String, Integer> myIndices = new HashMap<>();
+
+  int getIndex(String string) {
+    return myIndices.computeIfAbsent(string, k -> {
+      myStrings.add(k);
+      return myStrings.size() - 1;
+    });
+  }
+
+  List<String> getStrings() {
+    return myStrings;
+  }
+}
@@ -5,28 +5,26 @@ import org.arend.naming.reference.Referable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Caches names and namespaces of a scope as they are resolved.
+ * The cache can be read and filled concurrently.
+ */
 public class CachingScope implements Scope {
-  private final Map<String, Referable> myElements = new LinkedHashMap<>();
-  private final Map<String, Scope> myNamespaces = new HashMap<>();
-  private final Map<String, Scope> myOnlyInternalNamespaces = new HashMap<>();
+  private final Map<String, Referable> myReferables = new ConcurrentHashMap<>();
+  private final Map<String, Scope> myNamespaces = new ConcurrentHashMap<>();
+  private final Map<String, Scope> myOnlyInternalNamespaces = new ConcurrentHashMap<>();
+  private volatile List<Referable> myElements;
   private final Scope myScope;
   private final static Scope EMPTY_SCOPE = new Scope() {};
+  private final static Referable NULL_REFERABLE = () -> "";
   private final boolean myWithModules;
 
   private CachingScope(Scope scope, boolean withModules) {
     myScope = scope;
     myWithModules = withModules;
-    scope.find(ref -> {
-      if (withModules || !(ref instanceof ModuleReferable)) {
-        myElements.putIfAbsent(ref instanceof ModuleReferable ? ((ModuleReferable) ref).path.getLastName() : ref.textRepresentation(), ref);
-      }
-      return false;
-    });
   }
 
   public static Scope make(Scope scope) {
@@ -36,18 +34,49 @@ public class CachingScope implements Scope {
   @NotNull
   @Override
   public Collection<? extends Referable> getElements() {
-    return myElements.values();
+    List<Referable> elements = myElements;
+    if (elements != null) {
+      return elements;
+    }
+
+    Map<String, Referable> map = new LinkedHashMap<>();
+    myScope.find(ref -> {
+      if (myWithModules || !(ref instanceof ModuleReferable)) {
+        map.putIfAbsent(ref instanceof ModuleReferable ? ((ModuleReferable) ref).path.getLastName() : ref.textRepresentation(), ref);
+      }
+      return false;
+    });
+    elements = Collections.unmodifiableList(new ArrayList<>(map.values()));
+    myElements = elements;
+    return elements;
   }
 
   @Nullable
   @Override
   public Referable resolveName(String name) {
-    return myElements.get(name);
+    if (name == null) {
+      return null;
+    }
+
+    Referable referable = myReferables.get(name);
+    if (referable == null) {
+      referable = myScope.resolveName(name);
+      if (!myWithModules && referable instanceof ModuleReferable) {
+        referable = null;
+      }
+      myReferables.put(name, referable == null ? NULL_REFERABLE : referable);
+    }
+
+    return referable == NULL_REFERABLE ? null : referable;
   }
 
   @Nullable
   @Override
   public Scope resolveNamespace(String name, boolean onlyInternal) {
+    if (name == null) {
+      return null;
+    }
+
     Map<String, Scope> namespaces = onlyInternal ? myOnlyInternalNamespaces : myNamespaces;
     Scope namespace = namespaces.get(name);
     if (namespace == null) {
@@ -0,0 +1,117 @@
+package org.arend.naming.scope;
+
+import org.arend.naming.reference.AliasReferable;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.term.group.Group;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of names defined in a group that is used by {@link LexicalScope}.
+ * Each map contains the first referable with a given name in the order in which {@link LexicalScope} looks them up.
+ * Namespace commands and the parent scope are not indexed.
+ */
+public class GroupNameIndex {
+  private final int mySubgroupsCount;
+  private final int myDynamicSubgroupsCount;
+  private final int myInternalReferablesCount;
+  private final Map<String, Referable> myReferables = new HashMap<>();
+  private final Map<String, Group> myNamespaces = new HashMap<>();
+  private final Map<String, Referable> myDynamicReferables = new HashMap<>();
+  private final Map<String, Group> myDynamicNamespaces = new HashMap<>();
+  private final Map<String, Referable> myConstructors = new HashMap<>();
+  private final Map<String, Referable> myVisibleConstructors = new HashMap<>();
+  private final Map<String, Referable> myFields = new HashMap<>();
+  private final Map<String, Referable> myVisibleFields = new HashMap<>();
+
+  public GroupNameIndex(@NotNull Group group) {
+    Collection<? extends Group> subgroups = group.getSubgroups();
+    Collection<? extends Group> dynamicSubgroups = group.getDynamicSubgroups();
+    mySubgroupsCount = subgroups.size();
+    myDynamicSubgroupsCount = dynamicSubgroups.size();
+    myInternalReferablesCount = group.getInternalReferables().size();
+
+    addSubgroups(subgroups, myReferables, myNamespaces);
+    addSubgroups(dynamicSubgroups, myDynamicReferables, myDynamicNamespaces);
+    addInternalReferables(group.getConstructors(), myConstructors, myVisibleConstructors);
+    addInternalReferables(group.getFields(), myFields, myVisibleFields);
+  }
+
+  /**
+   * Checks if this index still describes the given group.
+   * Groups are only extended while they are built, so it is enough to compare the number of their elements.
+   * Internal referables of subgroups are not checked since a subgroup is complete when it is added to its parent.
+   */
+  public boolean isValid(@NotNull Group group) {
+    return group.getSubgroups().size() == mySubgroupsCount && group.getDynamicSubgroups().size() == myDynamicSubgroupsCount && group.getInternalReferables().size() == myInternalReferablesCount;
+  }
+
+  private static void addReferable(GlobalReferable referable, Map<String, Referable> referables) {
+    referables.putIfAbsent(referable.textRepresentation(), referable);
+    String alias = referable.getAliasName();
+    if (alias != null) {
+      referables.putIfAbsent(alias, new AliasReferable(referable));
+    }
+  }
+
+  private static void addSubgroups(Collection<? extends Group> subgroups, Map<String, Referable> referables, Map<String, Group> namespaces) {
+    for (Group subgroup : subgroups) {
+      GlobalReferable ref = subgroup.getReferable();
+      addReferable(ref, referables);
+      namespaces.putIfAbsent(ref.textRepresentation(), subgroup);
+      String alias = ref.getAliasName();
+      if (alias != null) {
+        namespaces.putIfAbsent(alias, subgroup);
+      }
+
+      for (Group.InternalReferable internalRef : subgroup.getConstructors()) {
+        if (internalRef.isVisible()) {
+          addReferable(internalRef.getReferable(), referables);
+        }
+      }
+      for (Group.InternalReferable internalRef : subgroup.getFields()) {
+        if (internalRef.isVisible()) {
+          addReferable(internalRef.getReferable(), referables);
+        }
+      }
+    }
+  }
+
+  private static void addInternalReferables(Collection<? extends Group.InternalReferable> internalReferables, Map<String, Referable> all, Map<String, Referable> visible) {
+    for (Group.InternalReferable internalRef : internalReferables) {
+      addReferable(internalRef.getReferable(), all);
+      if (internalRef.isVisible()) {
+        addReferable(internalRef.getReferable(), visible);
+      }
+    }
+  }
+
+  /**
+   * Resolves a name among subgroups and their visible constructors and fields.
+   */
+  public @Nullable Referable resolveSubgroupReferable(String name, boolean withDynamic) {
+    Referable result = myReferables.get(name);
+    return result == null && withDynamic ? myDynamicReferables.get(name) : result;
+  }
+
+  /**
+   * Finds a subgroup by its name or alias.
+   */
+  public @Nullable Group resolveSubgroup(String name, boolean withDynamic) {
+    Group result = myNamespaces.get(name);
+    return result == null && withDynamic ? myDynamicNamespaces.get(name) : result;
+  }
+
+  public @Nullable Referable resolveConstructor(String name, boolean onlyVisible) {
+    return (onlyVisible ? myVisibleConstructors : myConstructors).get(name);
+  }
+
+  public @Nullable Referable resolveField(String name, boolean onlyVisible) {
+    return (onlyVisible ? myVisibleFields : myFields).get(name);
+  }
+}
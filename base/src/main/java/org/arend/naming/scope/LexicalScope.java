@@ -187,6 +187,20 @@ public class LexicalScope implements Scope {
     return null;
   }
 
+  private static Referable resolveInternal(Group group, GroupNameIndex index, String name, boolean onlyInternal) {
+    Referable constructor = index.resolveConstructor(name, onlyInternal);
+    if (constructor != null) {
+      return constructor;
+    }
+
+    if (onlyInternal || !(group.getReferable() instanceof ClassReferable)) {
+      return index.resolveField(name, onlyInternal);
+    } else {
+      Referable referable = new ClassFieldImplScope((ClassReferable) group.getReferable(), false).resolveName(name);
+      return referable instanceof GlobalReferable ? referable : null;
+    }
+  }
+
   private enum ResolveType { REF, SCOPE, INTERNAL_SCOPE }
 
   private Object resolve(String name, ResolveType resolveType) {
@@ -194,25 +208,44 @@ public class LexicalScope implements Scope {
       return null;
     }
 
-    for (Group subgroup : myGroup.getSubgroups()) {
-      Object result = resolveSubgroup(subgroup, name, resolveType);
-      if (result != null) {
-        return result;
+    GroupNameIndex index = myGroup.getNameIndex();
+    if (index != null) {
+      boolean withDynamic = myExtent == Extent.EVERYTHING;
+      if (resolveType == ResolveType.REF) {
+        Referable result = index.resolveSubgroupReferable(name, withDynamic);
+        if (result == null && myExtent != Extent.ONLY_EXTERNAL) {
+          result = resolveInternal(myGroup, index, name, myKind == Kind.OPENED_INTERNAL);
+        }
+        if (result != null) {
+          return result;
+        }
+      } else {
+        Group subgroup = index.resolveSubgroup(name, withDynamic);
+        if (subgroup != null) {
+          return LexicalScope.opened(subgroup, resolveType == ResolveType.INTERNAL_SCOPE);
+        }
       }
-    }
-    if (myExtent == Extent.EVERYTHING) {
-      for (Group subgroup : myGroup.getDynamicSubgroups()) {
+    } else {
+      for (Group subgroup : myGroup.getSubgroups()) {
         Object result = resolveSubgroup(subgroup, name, resolveType);
         if (result != null) {
           return result;
         }
       }
-    }
+      if (myExtent == Extent.EVERYTHING) {
+        for (Group subgroup : myGroup.getDynamicSubgroups()) {
+          Object result = resolveSubgroup(subgroup, name, resolveType);
+          if (result != null) {
+            return result;
+          }
+        }
+      }
 
-    if (resolveType == ResolveType.REF && myExtent != Extent.ONLY_EXTERNAL) {
-      Object result = resolveInternal(myGroup, name, myKind == Kind.OPENED_INTERNAL);
-      if (result != null) {
-        return result;
+      if (resolveType == ResolveType.REF && myExtent != Extent.ONLY_EXTERNAL) {
+        Object result = resolveInternal(myGroup, name, myKind == Kind.OPENED_INTERNAL);
+        if (result != null) {
+          return result;
+        }
       }
     }
 
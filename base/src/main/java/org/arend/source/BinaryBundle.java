@@ -0,0 +1,257 @@
+package org.arend.source;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.library.SourceLibrary;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A single file that contains binaries of several modules.
+ * The file starts with an index that maps module paths to their location in the file.
+ * Uncompressed modules are read directly from the buffer, so a memory mapped bundle is loaded without copying.
+ *
+ * <pre>
+ * magic: int, version: int, number of entries: int
+ * entries: (module path: UTF, offset: int, length: int, flags: byte, crc32: int)*
+ * payloads
+ * </pre>
+ *
+ * Offsets are ints since a buffer cannot be larger than 2GB, so bigger bundles cannot be written.
+ */
+public class BinaryBundle {
+  public static final int MAGIC = 0x4152424E;
+  public static final int VERSION = 2;
+  public static final byte COMPRESSED = 1;
+
+  private final ByteBuffer myBuffer;
+  private final long myTimeStamp;
+  private final Map<ModulePath, Entry> myEntries;
+
+  private static class Entry {
+    final int offset;
+    final int length;
+    final byte flags;
+    final int crc;
+
+    Entry(int offset, int length, byte flags, int crc) {
+      this.offset = offset;
+      this.length = length;
+      this.flags = flags;
+      this.crc = crc;
+    }
+  }
+
+  /**
+   * Reads the index of a bundle.
+   *
+   * @param buffer     the content of the bundle.
+   * @param timeStamp  the modification time of the bundle.
+   */
+  public BinaryBundle(ByteBuffer buffer, long timeStamp) throws IOException {
+    myBuffer = buffer;
+    myTimeStamp = timeStamp;
+
+    DataInputStream input = new DataInputStream(new ByteBufferInputStream(buffer.duplicate()));
+    if (input.readInt() != MAGIC) {
+      throw new IOException("Not a binary bundle");
+    }
+    if (input.readInt() != VERSION) {
+      throw new IOException("Version mismatch");
+    }
+    int size = input.readInt();
+    myEntries = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      ModulePath modulePath = ModulePath.fromString(input.readUTF());
+      int offset = input.readInt();
+      int length = input.readInt();
+      byte flags = input.readByte();
+      int crc = input.readInt();
+      if (offset < 0 || length < 0 || (long) offset + length > buffer.limit()) {
+        throw new IOException("Module " + modulePath + " is out of bounds");
+      }
+      myEntries.put(modulePath, new Entry(offset, length, flags, crc));
+    }
+  }
+
+  /**
+   * Maps a bundle file into memory.
+   *
+   * @return the bundle or null if the file does not exist.
+   */
+  public static @Nullable BinaryBundle open(Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Bundle " + file + " is too large");
+      }
+      return new BinaryBundle(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), Files.getLastModifiedTime(file).toMillis());
+    }
+  }
+
+  public long getTimeStamp() {
+    return myTimeStamp;
+  }
+
+  public boolean containsModule(ModulePath modulePath) {
+    return myEntries.containsKey(modulePath);
+  }
+
+  public @NotNull Set<ModulePath> getModules() {
+    return myEntries.keySet();
+  }
+
+  public @Nullable StreamBinarySource getBinarySource(ModulePath modulePath) {
+    Entry entry = myEntries.get(modulePath);
+    return entry == null ? null : new BundleBinarySource(modulePath, entry);
+  }
+
+  private ByteBuffer getPayload(ModulePath modulePath, Entry entry) throws IOException {
+    ByteBuffer buffer = myBuffer.duplicate();
+    buffer.limit(entry.offset + entry.length).position(entry.offset);
+    buffer = buffer.slice();
+
+    CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate());
+    if ((int) crc.getValue() != entry.crc) {
+      throw new IOException("Checksum mismatch for module " + modulePath);
+    }
+    return buffer;
+  }
+
+  /**
+   * Writes a bundle.
+   *
+   * @param file        the output file.
+   * @param modules     serialized modules.
+   * @param compressed  true if modules are encoded with a {@link BinaryCodec}, false if they are not encoded at all.
+   */
+  public static void write(Path file, Map<ModulePath, byte[]> modules, boolean compressed) throws IOException {
+    List<byte[]> names = new ArrayList<>(modules.size());
+    long offset = 12;
+    for (ModulePath modulePath : modules.keySet()) {
+      ByteArrayOutputStream nameStream = new ByteArrayOutputStream();
+      new DataOutputStream(nameStream).writeUTF(modulePath.toString());
+      byte[] name = nameStream.toByteArray();
+      names.add(name);
+      offset += name.length + 13;
+    }
+    long size = offset;
+    for (byte[] payload : modules.values()) {
+      size += payload.length;
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Bundle " + file + " is too large");
+    }
+
+    Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(modules.size());
+      int i = 0;
+      for (byte[] payload : modules.values()) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        output.write(names.get(i++));
+        output.writeInt((int) offset);
+        output.writeInt(payload.length);
+        output.writeByte(compressed ? COMPRESSED : 0);
+        output.writeInt((int) crc.getValue());
+        offset += payload.length;
+      }
+      for (byte[] payload : modules.values()) {
+        output.write(payload);
+      }
+    }
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer myBuffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      myBuffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return myBuffer.hasRemaining() ? myBuffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!myBuffer.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, myBuffer.remaining());
+      myBuffer.get(bytes, off, len);
+      return len;
+    }
+
+    @Override
+    public int available() {
+      return myBuffer.remaining();
+    }
+  }
+
+  private class BundleBinarySource extends StreamBinarySource {
+    private final ModulePath myModulePath;
+    private final Entry myEntry;
+
+    private BundleBinarySource(ModulePath modulePath, Entry entry) {
+      myModulePath = modulePath;
+      myEntry = entry;
+    }
+
+    @Override
+    public @NotNull ModulePath getModulePath() {
+      return myModulePath;
+    }
+
+    @Override
+    protected @Nullable ByteBuffer getByteBuffer() throws IOException {
+      return (myEntry.flags & COMPRESSED) == 0 ? getPayload(myModulePath, myEntry) : null;
+    }
+
+    @Override
+    protected @Nullable InputStream getInputStream() throws IOException {
+      InputStream stream = new ByteBufferInputStream(getPayload(myModulePath, myEntry));
+      return (myEntry.flags & COMPRESSED) == 0 ? stream : BinaryCodec.decode(stream);
+    }
+
+    @Override
+    protected @Nullable OutputStream getOutputStream() {
+      return null;
+    }
+
+    @Override
+    public long getTimeStamp() {
+      return myTimeStamp;
+    }
+
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+
+    @Override
+    public boolean delete(SourceLibrary library) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package org.arend.source;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.*;
+
+/**
+ * Specifies how binary modules are encoded.
+ * Every codec except {@link #GZIP} writes a header with its identifier, so {@link #decode} detects the codec automatically.
+ * Files without a header are GZIP streams written by older versions.
+ */
+public final class BinaryCodec {
+  private static final byte[] MAGIC = { 'A', 'R', 'C' };
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final byte GZIP_ID = -1;
+  private static final byte NONE_ID = 0;
+  private static final byte DEFLATE_ID = 1;
+
+  /**
+   * Modules are not compressed.
+   * This is the fastest codec and the best choice for binaries that are compressed anyway, for example, in a jar.
+   */
+  public static final BinaryCodec NONE = new BinaryCodec(NONE_ID, 0);
+
+  /**
+   * The legacy format.
+   */
+  public static final BinaryCodec GZIP = new BinaryCodec(GZIP_ID, Deflater.DEFAULT_COMPRESSION);
+
+  /**
+   * Deflate with the fastest compression level.
+   */
+  public static final BinaryCodec DEFLATE_FAST = deflate(Deflater.BEST_SPEED);
+
+  public static final BinaryCodec DEFAULT = GZIP;
+
+  private final byte myId;
+  private final int myLevel;
+
+  private BinaryCodec(byte id, int level) {
+    myId = id;
+    myLevel = level;
+  }
+
+  /**
+   * Deflate with the given compression level.
+   * The level only affects writing, modules are decompressed at the same speed.
+   */
+  public static BinaryCodec deflate(int level) {
+    if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Illegal compression level: " + level);
+    }
+    return new BinaryCodec(DEFLATE_ID, level);
+  }
+
+  /**
+   * Parses a codec from a string of the form {@code none}, {@code gzip}, {@code deflate}, or {@code deflate:level}.
+   *
+   * @return the codec or null if the string is incorrect.
+   */
+  public static @Nullable BinaryCodec fromString(String string) {
+    int index = string.indexOf(':');
+    String name = index >= 0 ? string.substring(0, index) : string;
+    switch (name) {
+      case "none":
+        return index >= 0 ? null : NONE;
+      case "gzip":
+        return index >= 0 ? null : GZIP;
+      case "deflate":
+        if (index < 0) {
+          return deflate(Deflater.DEFAULT_COMPRESSION);
+        }
+        try {
+          return deflate(Integer.parseInt(string.substring(index + 1)));
+        } catch (IllegalArgumentException e) {
+          return null;
+        }
+      default:
+        return null;
+    }
+  }
+
+  public @NotNull OutputStream encode(@NotNull OutputStream stream) throws IOException {
+    if (myId == GZIP_ID) {
+      return new GZIPOutputStream(stream, BUFFER_SIZE);
+    }
+
+    stream.write(MAGIC);
+    stream.write(myId);
+    if (myId == NONE_ID) {
+      return stream;
+    }
+
+    Deflater deflater = new Deflater(myLevel);
+    return new DeflaterOutputStream(stream, deflater, BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          deflater.end();
+        }
+      }
+    };
+  }
+
+  /**
+   * Detects the codec of a stream and decodes it.
+   */
+  public static @NotNull InputStream decode(@NotNull InputStream stream) throws IOException {
+    BufferedInputStream input = new BufferedInputStream(stream, BUFFER_SIZE);
+    input.mark(MAGIC.length + 1);
+    byte[] header = input.readNBytes(MAGIC.length + 1);
+    if (header.length >= 2 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B) {
+      input.reset();
+      return new GZIPInputStream(input, BUFFER_SIZE);
+    }
+    if (header.length < MAGIC.length + 1 || header[0] != MAGIC[0] || header[1] != MAGIC[1] || header[2] != MAGIC[2]) {
+      throw new IOException("Unknown binary format");
+    }
+
+    switch (header[MAGIC.length]) {
+      case NONE_ID:
+        return input;
+      case DEFLATE_ID:
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(input, inflater, BUFFER_SIZE) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              inflater.end();
+            }
+          }
+        };
+      default:
+        throw new IOException("Unknown binary codec: " + header[MAGIC.length]);
+    }
+  }
+
+  /**
+   * Decodes a buffer without copying if it is not compressed.
+   *
+   * @return the decoded content or null if the buffer is compressed and should be decoded with {@link #decode(InputStream)}.
+   */
+  public static @Nullable ByteBuffer decode(@NotNull ByteBuffer buffer) {
+    if (buffer.remaining() < MAGIC.length + 1) {
+      return null;
+    }
+    int pos = buffer.position();
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (buffer.get(pos + i) != MAGIC[i]) {
+        return null;
+      }
+    }
+    if (buffer.get(pos + MAGIC.length) != NONE_ID) {
+      return null;
+    }
+
+    ByteBuffer result = buffer.duplicate();
+    result.position(pos + MAGIC.length + 1);
+    return result.slice();
+  }
+
+  @Override
+  public String toString() {
+    switch (myId) {
+      case NONE_ID: return "none";
+      case GZIP_ID: return "gzip";
+      default: return myLevel == Deflater.DEFAULT_COMPRESSION ? "deflate" : "deflate:" + myLevel;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package org.arend.source;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.library.SourceLibrary;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A source that encodes modules with a {@link BinaryCodec}.
+ * The codec is used only for persisting; the codec of a persisted module is detected when it is loaded.
+ */
+public class CodecStreamBinarySource extends StreamBinarySource {
+  private final StreamBinarySource mySource;
+  private final BinaryCodec myCodec;
+
+  /**
+   * Creates a new {@code CodecStreamBinarySource} from a specified source.
+   * @param source  the input source.
+   * @param codec   the codec used for persisting.
+   */
+  public CodecStreamBinarySource(StreamBinarySource source, BinaryCodec codec) {
+    mySource = source;
+    myCodec = codec;
+  }
+
+  public CodecStreamBinarySource(StreamBinarySource source) {
+    this(source, BinaryCodec.DEFAULT);
+  }
+
+  @Nullable
+  @Override
+  protected InputStream getInputStream() throws IOException {
+    InputStream stream = mySource.getInputStream();
+    return stream == null ? null : BinaryCodec.decode(stream);
+  }
+
+  @Nullable
+  @Override
+  protected OutputStream getOutputStream() throws IOException {
+    OutputStream stream = mySource.getOutputStream();
+    return stream == null ? null : myCodec.encode(stream);
+  }
+
+  @NotNull
+  @Override
+  public ModulePath getModulePath() {
+    return mySource.getModulePath();
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return mySource.getTimeStamp();
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return mySource.isAvailable();
+  }
+
+  @Override
+  public boolean delete(SourceLibrary library) {
+    return mySource.delete(library);
+  }
+}
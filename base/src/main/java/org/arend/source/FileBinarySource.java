@@ -2,6 +2,7 @@ package org.arend.source;
 
 import org.arend.ext.module.ModulePath;
 import org.arend.library.SourceLibrary;
+import org.arend.util.AtomicFileOutputStream;
 import org.arend.util.FileUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -11,7 +12,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
 public class FileBinarySource extends StreamBinarySource {
   private final Path myFile;
@@ -44,7 +44,7 @@ public class FileBinarySource extends StreamBinarySource {
   @Override
   protected OutputStream getOutputStream() throws IOException {
     Files.createDirectories(myFile.getParent());
-    return Files.newOutputStream(myFile, StandardOpenOption.CREATE);
+    return new AtomicFileOutputStream(myFile);
   }
 
   @Override
@@ -4,6 +4,7 @@ import org.arend.ext.module.ModulePath;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.Collection;
 
 /**
  * Represents a persisted module.
@@ -38,6 +39,16 @@ public interface Source {
    */
   LoadResult load(SourceLoader sourceLoader);
 
+  /**
+   * Gets modules of the same library that must be loaded before this source at each pass of {@link #load}.
+   * Sources that return null are loaded sequentially.
+   *
+   * @return modules imported by this source or null if they are not known.
+   */
+  default @Nullable Collection<? extends ModulePath> getImportedModules() {
+    return null;
+  }
+
   /**
    * Gets the timestamp for this source.
    *
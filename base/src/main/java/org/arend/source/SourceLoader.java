@@ -11,11 +11,15 @@ import org.arend.module.scopeprovider.CachingModuleScopeProvider;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.naming.scope.Scope;
+import org.arend.typechecking.CoreCompactor;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Contains all necessary information for source loading.
@@ -46,7 +50,7 @@ public final class SourceLoader {
     return myReferableConverter;
   }
 
-  public ModuleScopeProvider getModuleScopeProvider(boolean withTests) {
+  public synchronized ModuleScopeProvider getModuleScopeProvider(boolean withTests) {
     if (myModuleScopeProvider == null) {
       myModuleScopeProvider = myLibraryManager.getAvailableModuleScopeProvider(myLibrary);
     }
@@ -68,6 +72,10 @@ public final class SourceLoader {
     return myLibraryManager.getInstanceProviderSet();
   }
 
+  public CoreCompactor getCoreCompactor() {
+    return myLibraryManager.getCoreCompactor();
+  }
+
   public ErrorReporter getTypecheckingErrorReporter() {
     return myLibraryManager.getTypecheckingErrorReporter();
   }
@@ -115,16 +123,139 @@ public final class SourceLoader {
 
   /**
    * Loads raw sources that were preloaded.
+   * If {@link LibraryManager#setResolvingThreads} allows it, each pass is performed concurrently in the order of imports.
    */
   public void loadRawSources() {
-    while (!myLoadingRawModules.isEmpty()) {
-      for (Iterator<Source> it = myLoadingRawModules.values().iterator(); it.hasNext(); ) {
-        Source source = it.next();
-        Source.LoadResult loadResult = source.load(this);
-        if (loadResult != Source.LoadResult.CONTINUE) {
-          it.remove();
+    int threads = myLibraryManager.getResolvingThreads();
+    ExecutorService executor = null;
+    try {
+      while (!myLoadingRawModules.isEmpty()) {
+        List<List<Source>> components = threads > 1 ? getImportComponents() : null;
+        if (components == null || components.size() <= 1) {
+          for (Iterator<Source> it = myLoadingRawModules.values().iterator(); it.hasNext(); ) {
+            Source source = it.next();
+            Source.LoadResult loadResult = source.load(this);
+            if (loadResult != Source.LoadResult.CONTINUE) {
+              it.remove();
+            }
+          }
+        } else {
+          if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads);
+          }
+          loadComponents(components, executor);
+        }
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Performs one pass of loading of given components.
+   * A component is loaded after all components it imports; sources within a component are loaded sequentially.
+   */
+  private void loadComponents(List<List<Source>> components, ExecutorService executor) {
+    Map<ModulePath, CompletableFuture<Void>> futures = new HashMap<>();
+    Set<ModulePath> finished = ConcurrentHashMap.newKeySet();
+    for (List<Source> component : components) {
+      List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+      for (Source source : component) {
+        Collection<? extends ModulePath> imports = source.getImportedModules();
+        if (imports != null) {
+          for (ModulePath module : imports) {
+            CompletableFuture<Void> future = futures.get(module);
+            if (future != null) {
+              dependencies.add(future);
+            }
+          }
         }
       }
+
+      CompletableFuture<Void> future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+        for (Source source : component) {
+          if (source.load(this) != Source.LoadResult.CONTINUE) {
+            finished.add(source.getModulePath());
+          }
+        }
+      }, executor);
+      for (Source source : component) {
+        futures.put(source.getModulePath(), future);
+      }
+    }
+
+    try {
+      CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+    myLoadingRawModules.keySet().removeAll(finished);
+  }
+
+  /**
+   * Splits loading raw sources into strongly connected components of the import graph.
+   *
+   * @return components in the order of imports or null if some source does not know its imports.
+   */
+  private List<List<Source>> getImportComponents() {
+    for (Source source : myLoadingRawModules.values()) {
+      if (source.getImportedModules() == null) {
+        return null;
+      }
+    }
+
+    List<List<Source>> components = new ArrayList<>();
+    Map<ModulePath, Integer> indices = new HashMap<>();
+    Map<ModulePath, Integer> lowLinks = new HashMap<>();
+    Deque<Source> stack = new ArrayDeque<>();
+    Set<ModulePath> onStack = new HashSet<>();
+    for (Source source : myLoadingRawModules.values()) {
+      if (!indices.containsKey(source.getModulePath())) {
+        findComponents(source, indices, lowLinks, stack, onStack, components);
+      }
+    }
+    return components;
+  }
+
+  private void findComponents(Source source, Map<ModulePath, Integer> indices, Map<ModulePath, Integer> lowLinks, Deque<Source> stack, Set<ModulePath> onStack, List<List<Source>> components) {
+    ModulePath modulePath = source.getModulePath();
+    int index = indices.size();
+    indices.put(modulePath, index);
+    lowLinks.put(modulePath, index);
+    stack.push(source);
+    onStack.add(modulePath);
+
+    for (ModulePath module : Objects.requireNonNull(source.getImportedModules())) {
+      Source imported = myLoadingRawModules.get(module);
+      if (imported == null) {
+        continue;
+      }
+      if (!indices.containsKey(module)) {
+        findComponents(imported, indices, lowLinks, stack, onStack, components);
+        lowLinks.put(modulePath, Math.min(lowLinks.get(modulePath), lowLinks.get(module)));
+      } else if (onStack.contains(module)) {
+        lowLinks.put(modulePath, Math.min(lowLinks.get(modulePath), indices.get(module)));
+      }
+    }
+
+    if (lowLinks.get(modulePath) == index) {
+      List<Source> component = new ArrayList<>();
+      Source member;
+      do {
+        member = stack.pop();
+        onStack.remove(member.getModulePath());
+        component.add(member);
+      } while (member != source);
+      components.add(component);
     }
   }
 
@@ -20,12 +20,14 @@ import org.arend.source.error.LocationError;
 import org.arend.source.error.PersistingError;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.CoreCompactor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Represents a source that loads a binary module from an {@link InputStream} and persists it to an {@link OutputStream}.
@@ -57,6 +59,22 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
   @Nullable
   protected abstract InputStream getInputStream() throws IOException;
 
+  /**
+   * Gets a buffer with the serialized module.
+   * If it is not null, it is used instead of {@link #getInputStream} which allows sources to avoid copying.
+   *
+   * @return a buffer from which the source will be loaded or null if the source should be loaded from a stream.
+   */
+  @Nullable
+  protected ByteBuffer getByteBuffer() throws IOException {
+    return null;
+  }
+
+  private static ModuleProtos.Module readModuleProto(CodedInputStream codedInputStream) throws IOException {
+    codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+    return ModuleProtos.Module.parseFrom(codedInputStream);
+  }
+
   /**
    * Gets an output stream to which the source will be persisted.
    *
@@ -70,30 +88,35 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     ChildGroup group = null;
-    try (InputStream inputStream = getInputStream()) {
-      if (inputStream == null) {
-        return false;
+    try {
+      ModuleProtos.Module moduleProto;
+      ByteBuffer buffer = getByteBuffer();
+      if (buffer != null) {
+        moduleProto = readModuleProto(CodedInputStream.newInstance(buffer));
+      } else {
+        try (InputStream inputStream = getInputStream()) {
+          if (inputStream == null) {
+            return false;
+          }
+          moduleProto = readModuleProto(CodedInputStream.newInstance(inputStream));
+        }
       }
 
-      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
-      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
-      ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(codedInputStream);
       boolean isComplete = moduleProto.getComplete();
       if (!isComplete && !library.hasRawSources()) {
         sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(modulePath));
         return false;
       }
 
-      for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleProto.getModuleCallTargetsList()) {
-        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+      ReferableConverter referableConverter = sourceLoader.getReferableConverter();
+      myModuleDeserialization = new ModuleDeserialization(moduleProto, referableConverter, myKeyRegistry, myDefinitionListener);
+
+      for (ModulePath module : myModuleDeserialization.getCallTargetModules()) {
         if (library.containsModule(module) && !sourceLoader.preloadBinary(module, myKeyRegistry, myDefinitionListener)) {
           return false;
         }
       }
 
-      ReferableConverter referableConverter = sourceLoader.getReferableConverter();
-      myModuleDeserialization = new ModuleDeserialization(moduleProto, referableConverter, myKeyRegistry, myDefinitionListener);
-
       if (referableConverter == null) {
         group = myModuleDeserialization.readGroup(new ModuleLocation(library, ModuleLocation.LocationKind.SOURCE, modulePath));
         library.groupLoaded(modulePath, group, false, false);
@@ -119,8 +142,7 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     try {
-      for (ModuleProtos.ModuleCallTargets moduleCallTargets : myModuleDeserialization.getModuleProto().getModuleCallTargetsList()) {
-        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+      for (ModulePath module : myModuleDeserialization.getCallTargetModules()) {
         if (library.containsModule(module) && !sourceLoader.fillInBinary(module)) {
           ChildGroup group = library.getModuleGroup(modulePath, false);
           if (group != null) {
@@ -130,7 +152,14 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
         }
       }
 
-      myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(false), library.getDependencyListener());
+      myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(false), library.getDependencyListener(), true);
+      CoreCompactor compactor = sourceLoader.getCoreCompactor();
+      if (compactor != null) {
+        ChildGroup group = library.getModuleGroup(modulePath, false);
+        if (group != null) {
+          compactor.compactGroup(modulePath, group);
+        }
+      }
       library.binaryLoaded(modulePath, myModuleDeserialization.getModuleProto().getComplete());
       myModuleDeserialization = null;
       return LoadResult.SUCCESS;
@@ -159,18 +188,20 @@ public abstract class StreamBinarySource implements PersistableBinarySource {
       return false;
     }
 
-    try (OutputStream outputStream = getOutputStream()) {
-      if (outputStream == null) {
-        errorReporter.report(new PersistingError(currentModulePath));
-        return false;
-      }
-
+    try {
+      // Serialize the module before opening the stream so that a failure does not damage the old binary
       ModuleProtos.Module module = new ModuleSerialization(errorReporter, library.getDependencyListener()).writeModule(group, currentModulePath, referableConverter);
       if (module == null) {
         return false;
       }
 
-      module.writeTo(outputStream);
+      try (OutputStream outputStream = getOutputStream()) {
+        if (outputStream == null) {
+          errorReporter.report(new PersistingError(currentModulePath));
+          return false;
+        }
+        module.writeTo(outputStream);
+      }
       return true;
     } catch (Exception e) {
       errorReporter.report(new ExceptionError(e, "persisting", currentModulePath));
@@ -8,18 +8,34 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+/**
+ * A binary source that is stored in a zip file.
+ * Modules are decoded with {@link BinaryCodec}; uncompressed modules in stored entries are read directly from the content of the zip file.
+ */
 public class ZipFileBinarySource extends StreamBinarySource {
   private final ModulePath myModulePath;
   private final ZipFile myFile;
   private final ZipEntry myEntry;
+  private final ByteBuffer myStoredData;
 
-  public ZipFileBinarySource(ModulePath modulePath, ZipFile file, ZipEntry entry) {
+  /**
+   * Creates a new {@code ZipFileBinarySource}.
+   *
+   * @param storedData  the content of the entry if it is stored without compression, or null.
+   */
+  public ZipFileBinarySource(ModulePath modulePath, ZipFile file, ZipEntry entry, @Nullable ByteBuffer storedData) {
     myModulePath = modulePath;
     myFile = file;
     myEntry = entry;
+    myStoredData = storedData;
+  }
+
+  public ZipFileBinarySource(ModulePath modulePath, ZipFile file, ZipEntry entry) {
+    this(modulePath, file, entry, null);
   }
 
   @Override
@@ -37,9 +53,14 @@ public class ZipFileBinarySource extends StreamBinarySource {
     return true;
   }
 
+  @Override
+  protected @Nullable ByteBuffer getByteBuffer() {
+    return myStoredData == null ? null : BinaryCodec.decode(myStoredData);
+  }
+
   @Override
   protected @Nullable InputStream getInputStream() throws IOException {
-    return myFile.getInputStream(myEntry);
+    return BinaryCodec.decode(myFile.getInputStream(myEntry));
   }
 
   @Override
@@ -1569,6 +1569,8 @@ public final class Concrete {
   public static abstract class ResolvableDefinition implements GeneralDefinition {
     Stage stage = Stage.TYPE_CLASS_REFERENCES_RESOLVED;
     private Status myStatus = Status.NO_ERRORS;
+    private Set<TCReferable> myDefCalls;
+    private Set<TCReferable> myHeaderDefCalls;
 
     public Status getStatus() {
       return myStatus;
@@ -1601,14 +1603,38 @@ public final class Concrete {
 
     public void setResolved() {
       stage = Stage.RESOLVED;
+      clearDefCalls();
     }
 
     public void setDesugarized() {
       stage = Stage.DESUGARIZED;
+      clearDefCalls();
     }
 
     public void setTypechecked() {
       stage = Stage.TYPECHECKED;
+      clearDefCalls();
+    }
+
+    /**
+     * @return the cached set of definitions referred to in this definition (or only in its header if {@code withBodies} is false),
+     *         or null if it is not computed yet.
+     */
+    public Set<TCReferable> getCachedDefCalls(boolean withBodies) {
+      return withBodies ? myDefCalls : myHeaderDefCalls;
+    }
+
+    public void setCachedDefCalls(boolean withBodies, Set<TCReferable> defCalls) {
+      if (withBodies) {
+        myDefCalls = defCalls;
+      } else {
+        myHeaderDefCalls = defCalls;
+      }
+    }
+
+    private void clearDefCalls() {
+      myDefCalls = null;
+      myHeaderDefCalls = null;
     }
 
     public void setTypeClassReferencesResolved() {
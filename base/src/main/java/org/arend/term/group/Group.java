@@ -1,8 +1,10 @@
 package org.arend.term.group;
 
 import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.scope.GroupNameIndex;
 import org.arend.term.NamespaceCommand;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +30,15 @@ public interface Group {
     return Collections.emptyList();
   }
 
+  /**
+   * Returns an index of names defined in this group or null if names should be looked up by scanning the group.
+   * Building an index takes a pass over the whole group,
+   * so implementations that override this method should cache the index while it is {@link GroupNameIndex#isValid valid}.
+   */
+  default @Nullable GroupNameIndex getNameIndex() {
+    return null;
+  }
+
   interface InternalReferable {
     LocatedReferable getReferable();
     boolean isVisible();
@@ -1,6 +1,7 @@
 package org.arend.term.group;
 
 import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.scope.GroupNameIndex;
 import org.arend.term.ChildNamespaceCommand;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -14,6 +15,7 @@ public class StaticGroup implements ChildGroup {
   private final List<Group> myStaticGroups;
   private final List<ChildNamespaceCommand> myNamespaceCommands;
   private final ChildGroup myParent;
+  private volatile GroupNameIndex myNameIndex;
 
   public StaticGroup(LocatedReferable referable, List<Group> staticGroups, List<ChildNamespaceCommand> namespaceCommands, ChildGroup parent) {
     myReferable = referable;
@@ -51,4 +53,15 @@ public class StaticGroup implements ChildGroup {
   public ChildGroup getParentGroup() {
     return myParent;
   }
+
+  @NotNull
+  @Override
+  public GroupNameIndex getNameIndex() {
+    GroupNameIndex index = myNameIndex;
+    if (index == null || !index.isValid(this)) {
+      index = new GroupNameIndex(this);
+      myNameIndex = index;
+    }
+    return index;
+  }
 }
@@ -0,0 +1,116 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.*;
+import org.arend.core.expr.AbsExpression;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.visitor.CompactingVisitor;
+import org.arend.core.subst.LevelPair;
+import org.arend.ext.module.ModulePath;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.term.group.Group;
+import org.arend.util.CollectionCompactor;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compacts core definitions that are not going to be modified, that is, after they are typechecked or deserialized.
+ * The number of saved bytes is estimated by {@link CollectionCompactor} and accumulated for every module.
+ * Bodies which are loaded lazily are not compacted.
+ */
+public class CoreCompactor {
+  private final Map<ModulePath, Long> myBytesSaved = new ConcurrentHashMap<>();
+
+  /**
+   * Compacts a definition.
+   *
+   * @return the estimated number of saved bytes.
+   */
+  public long compact(Definition definition) {
+    CollectionCompactor compactor = new CollectionCompactor();
+    CompactingVisitor visitor = new CompactingVisitor(compactor);
+    visitor.visitParameters(definition.getParameters(), null);
+
+    if (definition instanceof FunctionDefinition) {
+      FunctionDefinition function = (FunctionDefinition) definition;
+      visit(function.getResultType(), visitor);
+      visit(function.getResultTypeLevel(), visitor);
+      if (function.isBodyLoaded()) {
+        visitor.visitBody(function.getReallyActualBody(), null);
+      }
+    } else if (definition instanceof DataDefinition) {
+      for (Constructor constructor : ((DataDefinition) definition).getConstructors()) {
+        visitor.visitParameters(constructor.getParameters(), null);
+        visitor.visitBody(constructor.getBody(), null);
+      }
+      compactor.list(((DataDefinition) definition).getConstructors());
+    } else if (definition instanceof ClassDefinition) {
+      ClassDefinition classDef = (ClassDefinition) definition;
+      for (ClassField field : classDef.getPersonalFields()) {
+        visit(field.getType(LevelPair.STD), visitor);
+        visit(field.getTypeLevel(), visitor);
+      }
+      for (Map.Entry<ClassField, AbsExpression> entry : classDef.getImplemented()) {
+        visit(entry.getValue().getExpression(), visitor);
+      }
+      for (Map.Entry<ClassField, AbsExpression> entry : classDef.getDefaults()) {
+        visit(entry.getValue().getExpression(), visitor);
+      }
+      for (Map.Entry<ClassField, PiExpression> entry : classDef.getOverriddenFields()) {
+        visit(entry.getValue(), visitor);
+      }
+      classDef.compact(compactor);
+    }
+
+    return compactor.getBytesSaved();
+  }
+
+  private static void visit(Expression expr, CompactingVisitor visitor) {
+    if (expr != null) {
+      expr.accept(visitor, null);
+    }
+  }
+
+  /**
+   * Compacts a definition and adds the number of saved bytes to the statistics of a given module.
+   */
+  public void compact(ModulePath module, Definition definition) {
+    long saved = compact(definition);
+    if (module != null && saved != 0) {
+      myBytesSaved.merge(module, saved, Long::sum);
+    }
+  }
+
+  /**
+   * Compacts all typechecked definitions of a group of a given module.
+   */
+  public void compactGroup(ModulePath module, Group group) {
+    LocatedReferable ref = group.getReferable();
+    Definition def = ref instanceof TCDefReferable ? ((TCDefReferable) ref).getTypechecked() : null;
+    if (def != null) {
+      compact(module, def);
+    }
+
+    for (Group subgroup : group.getSubgroups()) {
+      compactGroup(module, subgroup);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      compactGroup(module, subgroup);
+    }
+  }
+
+  /**
+   * @return the estimated number of saved bytes for every module.
+   */
+  public Map<ModulePath, Long> getBytesSaved() {
+    return Collections.unmodifiableMap(new TreeMap<>(myBytesSaved));
+  }
+
+  public void clear() {
+    myBytesSaved.clear();
+  }
+}
@@ -0,0 +1,122 @@
+package org.arend.typechecking;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A trail of undo actions used for backtracking of the typechecker state.
+ * Mutations are recorded only while there is at least one active checkpoint.
+ */
+public class UndoLog {
+  private final List<Runnable> myActions = new ArrayList<>();
+  private int myDepth;
+  private boolean myRollingBack;
+
+  public boolean isRecording() {
+    return myDepth > 0 && !myRollingBack;
+  }
+
+  public void record(Runnable undo) {
+    if (isRecording()) {
+      myActions.add(undo);
+    }
+  }
+
+  /**
+   * Starts a new checkpoint.
+   *
+   * @return the position of the checkpoint in the log.
+   */
+  public int checkpoint() {
+    myDepth++;
+    return myActions.size();
+  }
+
+  /**
+   * @return the current position in the log.
+   */
+  public int mark() {
+    return myActions.size();
+  }
+
+  /**
+   * Undoes all mutations recorded after the given position.
+   */
+  public void rollback(int mark) {
+    myRollingBack = true;
+    try {
+      for (int i = myActions.size() - 1; i >= mark; i--) {
+        myActions.remove(i).run();
+      }
+    } finally {
+      myRollingBack = false;
+    }
+  }
+
+  /**
+   * Releases the last checkpoint.
+   * Mutations recorded after it are kept since they are still covered by the previous checkpoint.
+   */
+  public void release() {
+    if (myDepth == 0) {
+      throw new IllegalStateException();
+    }
+    if (--myDepth == 0) {
+      myActions.clear();
+    }
+  }
+
+  public <E> List<E> newList() {
+    return new LoggedList<>();
+  }
+
+  private class LoggedList<E> extends AbstractList<E> {
+    private final ArrayList<E> myList = new ArrayList<>();
+
+    @Override
+    public E get(int index) {
+      return myList.get(index);
+    }
+
+    @Override
+    public int size() {
+      return myList.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+      E old = myList.set(index, element);
+      record(() -> myList.set(index, old));
+      return old;
+    }
+
+    @Override
+    public void add(int index, E element) {
+      myList.add(index, element);
+      modCount++;
+      record(() -> myList.remove(index));
+    }
+
+    @Override
+    public E remove(int index) {
+      E old = myList.remove(index);
+      modCount++;
+      record(() -> myList.add(index, old));
+      return old;
+    }
+
+    @Override
+    public void clear() {
+      if (myList.isEmpty()) {
+        return;
+      }
+      if (isRecording()) {
+        List<E> old = new ArrayList<>(myList);
+        record(() -> myList.addAll(old));
+      }
+      myList.clear();
+      modCount++;
+    }
+  }
+}
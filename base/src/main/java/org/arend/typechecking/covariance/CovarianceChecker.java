@@ -67,6 +67,15 @@ public abstract class CovarianceChecker {
     return check(expr);
   }
 
+  /**
+   * @return true if {@link #check} analyzes the structure of {@code expr} instead of passing it to {@link #checkOtherwise}.
+   */
+  public boolean checksStructure(Expression expr) {
+    return expr instanceof UniverseExpression || expr instanceof PiExpression || expr instanceof SigmaExpression || expr instanceof ClassCallExpression ||
+      expr instanceof DataCallExpression && (allowData() || ((DataCallExpression) expr).getDefinition() == Prelude.PATH) ||
+      expr instanceof FunCallExpression && ((FunCallExpression) expr).getDefinition() == Prelude.PATH_INFIX;
+  }
+
   public boolean check(Expression expr) {
     if (expr == null) {
       return false;
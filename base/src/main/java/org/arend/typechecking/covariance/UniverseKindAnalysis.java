@@ -0,0 +1,74 @@
+package org.arend.typechecking.covariance;
+
+import org.arend.core.definition.UniverseKind;
+import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.ExpressionAnalysis;
+import org.arend.typechecking.visitor.CheckForUniversesVisitor;
+
+/**
+ * Computes the same kind as {@link UniverseKindChecker#getUniverseKind}, but can be run together with other analyses.
+ * Roots whose structure is analyzed by the checker are passed to it.
+ * Subexpressions that {@link CheckForUniversesVisitor} does not traverse as they are, such as evaluated field calls, are passed to the visitor.
+ */
+public class UniverseKindAnalysis implements ExpressionAnalysis {
+  private final UniverseKindChecker myChecker = new UniverseKindChecker();
+  private final CheckForUniversesVisitor myVisitor = new CheckForUniversesVisitor();
+  private UniverseKind myResult = UniverseKind.NO_UNIVERSES;
+
+  public UniverseKind getUniverseKind() {
+    return myResult;
+  }
+
+  private Action found(boolean found, Action otherwise) {
+    if (found) {
+      myResult = UniverseKind.WITH_UNIVERSES;
+      return Action.STOP;
+    }
+    return otherwise;
+  }
+
+  private Action delegate(Expression expr) {
+    return found(expr.accept(myVisitor, null), Action.SKIP);
+  }
+
+  @Override
+  public Action start(Expression root) {
+    Expression expr = root.getUnderlyingExpression();
+    if (expr != root || myChecker.checksStructure(expr)) {
+      myResult = myResult.max(myChecker.getUniverseKind(root));
+      return myResult == UniverseKind.WITH_UNIVERSES ? Action.STOP : Action.SKIP;
+    }
+    return Action.CONTINUE;
+  }
+
+  @Override
+  public Action enter(Expression expr) {
+    if (expr instanceof AppExpression) {
+      Expression fun = expr;
+      while (fun instanceof AppExpression) {
+        fun = fun.getFunction();
+      }
+      return fun instanceof FieldCallExpression && !((FieldCallExpression) fun).getDefinition().isProperty() && CheckForUniversesVisitor.isEvaluated((FieldCallExpression) fun) ? delegate(expr) : Action.CONTINUE;
+    }
+    if (expr instanceof FieldCallExpression) {
+      FieldCallExpression fieldCall = (FieldCallExpression) expr;
+      return fieldCall.getDefinition().isProperty() ? Action.SKIP : CheckForUniversesVisitor.isEvaluated(fieldCall) ? delegate(expr) : Action.CONTINUE;
+    }
+    if (expr instanceof DefCallExpression) {
+      return found(myVisitor.processDefCall((DefCallExpression) expr, null), Action.CONTINUE);
+    }
+    if (expr instanceof UniverseExpression) {
+      return found(myVisitor.visitUniverse((UniverseExpression) expr, null), Action.CONTINUE);
+    }
+    if (expr instanceof TypeCoerceExpression) {
+      return found(myVisitor.visitTypeCoerce((TypeCoerceExpression) expr, null), Action.SKIP);
+    }
+    if (expr instanceof ErrorExpression) {
+      return Action.SKIP;
+    }
+    if (expr instanceof SubstExpression && !((SubstExpression) expr).isInferenceVariable()) {
+      return delegate(((SubstExpression) expr).getSubstExpression());
+    }
+    return Action.CONTINUE;
+  }
+}
@@ -477,7 +477,7 @@ public class StdImplicitArgsInference implements ImplicitArgsInference {
                 if (length != null) {
                   length = length.normalize(NormalizationMode.WHNF);
                   if (length instanceof IntegerExpression && !((IntegerExpression) length).isZero() || length instanceof ConCallExpression && ((ConCallExpression) length).getDefinition() == Prelude.SUC) {
-                    Map<ClassField, Expression> impls = new HashMap<>(classCall.getImplementedHere());
+                    Map<ClassField, Expression> impls = new ClassFieldMap<>(Prelude.ARRAY, classCall.getImplementedHere());
                     impls.put(Prelude.ARRAY_LENGTH, length instanceof IntegerExpression ? ((IntegerExpression) length).pred() : ((ConCallExpression) length).getDefCallArguments().get(0));
                     classCall = new ClassCallExpression(Prelude.ARRAY, classCall.getLevels(), impls, classCall.getSort(), classCall.getUniverseKind());
                   }
@@ -10,6 +10,7 @@ import org.arend.core.context.binding.inference.TypeClassInferenceVariable;
 import org.arend.core.context.param.SingleDependentLink;
 import org.arend.core.definition.ClassDefinition;
 import org.arend.core.definition.ClassField;
+import org.arend.core.definition.ClassFieldMap;
 import org.arend.core.definition.UniverseKind;
 import org.arend.core.expr.*;
 import org.arend.core.expr.type.Type;
@@ -39,7 +40,7 @@ import java.util.*;
 import static org.arend.core.expr.ExpressionFactory.Nat;
 
 public class TwoStageEquations implements Equations {
-  private List<Equation> myEquations = new ArrayList<>();
+  private final List<Equation> myEquations;
   private final List<LevelEquation<LevelVariable>> myLevelEquations = new ArrayList<>();
   private final List<InferenceLevelVariable> myLevelVariables = new ArrayList<>();
   private final CheckTypeVisitor myVisitor;
@@ -49,6 +50,7 @@ public class TwoStageEquations implements Equations {
 
   public TwoStageEquations(CheckTypeVisitor visitor) {
     myVisitor = visitor;
+    myEquations = visitor.getUndoLog().newList();
   }
 
   @Override
@@ -233,8 +235,11 @@ public class TwoStageEquations implements Equations {
     }
 
     if (cmp == CMP.EQ && (inf1 != null && inf2 == null || inf2 != null && inf1 == null)) {
-      Expression prev = myNotSolvableFromEquationsVars.putIfAbsent(inf1 != null ? inf1 : inf2, inf1 != null ? expr2 : expr1);
-      if (prev != null) {
+      InferenceVariable var = inf1 != null ? inf1 : inf2;
+      Expression prev = myNotSolvableFromEquationsVars.putIfAbsent(var, inf1 != null ? expr2 : expr1);
+      if (prev == null) {
+        myVisitor.getUndoLog().record(() -> myNotSolvableFromEquationsVars.remove(var));
+      } else {
         return CompareVisitor.compare(this, CMP.EQ, prev, inf1 != null ? expr2 : expr1, type, sourceNode);
       }
     }
@@ -359,6 +364,10 @@ public class TwoStageEquations implements Equations {
 
     myEquations.clear();
     myProps.clear();
+    if (!myNotSolvableFromEquationsVars.isEmpty() && myVisitor.getUndoLog().isRecording()) {
+      Map<InferenceVariable, Expression> notSolvableVars = new HashMap<>(myNotSolvableFromEquationsVars);
+      myVisitor.getUndoLog().record(() -> myNotSolvableFromEquationsVars.putAll(notSolvableVars));
+    }
     myNotSolvableFromEquationsVars.clear();
     myBoundVariables.clear();
   }
@@ -425,17 +434,14 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public void saveState(TypecheckerState state) {
-    state.equations = new ArrayList<>(myEquations);
     state.numberOfLevelVariables = myLevelVariables.size();
     state.numberOfLevelEquations = myLevelEquations.size();
     state.numberOfProps = myProps.size();
     state.numberOfBoundVars = myBoundVariables.size();
-    state.notSolvableFromEquationsVars = new HashSet<>(myNotSolvableFromEquationsVars.keySet());
   }
 
   @Override
   public void loadState(TypecheckerState state) {
-    myEquations = new ArrayList<>(state.equations);
     if (myLevelVariables.size() > state.numberOfLevelVariables) {
       myLevelVariables.subList(state.numberOfLevelVariables, myLevelVariables.size()).clear();
     }
@@ -448,7 +454,6 @@ public class TwoStageEquations implements Equations {
     if (myBoundVariables.size() > state.numberOfBoundVars) {
       myBoundVariables.subList(state.numberOfBoundVars, myBoundVariables.size()).clear();
     }
-    myNotSolvableFromEquationsVars.keySet().retainAll(state.notSolvableFromEquationsVars);
   }
 
   private boolean solveClassCallsEq() {
@@ -725,7 +730,7 @@ public class TwoStageEquations implements Equations {
       if (cmp == CMP.LE) {
         Equations wrapper = useWrapper ? new LevelEquationsWrapper(this) : this;
         LevelPair levels = LevelPair.generateInferVars(this, universeKind, pair.proj1.getSourceNode());
-        Map<ClassField, Expression> implementations = new HashMap<>();
+        Map<ClassField, Expression> implementations = new ClassFieldMap<>(classDef);
         solution = new ClassCallExpression(classDef, levels, implementations, classDef.getSort(), universeKind);
         ReferenceExpression thisExpr = new ReferenceExpression(solution.getThisBinding());
         boolean first = true;
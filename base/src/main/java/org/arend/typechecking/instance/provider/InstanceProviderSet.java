@@ -10,12 +10,17 @@ import org.arend.term.NamespaceCommand;
 import org.arend.term.group.Group;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+/**
+ * Instance providers of definitions.
+ * Libraries may be loaded concurrently, so this set can be updated from several threads.
+ */
 public class InstanceProviderSet {
-  private final Map<TCDefReferable, InstanceProvider> myProviders = new HashMap<>();
-  private final Set<Group> myCollected = new HashSet<>();
+  private final Map<TCDefReferable, InstanceProvider> myProviders = new ConcurrentHashMap<>();
+  private final Set<Group> myCollected = ConcurrentHashMap.newKeySet();
 
   public void put(TCDefReferable referable, InstanceProvider provider) {
     myProviders.put(referable, provider);
@@ -26,7 +31,17 @@ public class InstanceProviderSet {
   }
 
   public InstanceProvider computeIfAbsent(TCDefReferable referable, Function<? super TCDefReferable, ? extends InstanceProvider> fun) {
-    return myProviders.computeIfAbsent(referable, fun);
+    // The function may update this set, so it is not invoked inside ConcurrentHashMap.computeIfAbsent
+    InstanceProvider provider = myProviders.get(referable);
+    if (provider != null) {
+      return provider;
+    }
+    provider = fun.apply(referable);
+    if (provider == null) {
+      return null;
+    }
+    InstanceProvider prev = myProviders.putIfAbsent(referable, provider);
+    return prev != null ? prev : provider;
   }
 
   private class MyPredicate implements Predicate<Referable> {
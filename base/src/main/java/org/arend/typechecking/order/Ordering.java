@@ -122,35 +122,32 @@ public class Ordering extends BellmanFord<Concrete.ResolvableDefinition> {
   @Override
   protected boolean forDependencies(Concrete.ResolvableDefinition definition, Consumer<Concrete.ResolvableDefinition> consumer) {
     Set<TCReferable> dependencies = new LinkedHashSet<>();
-    CollectDefCallsVisitor visitor = new CollectDefCallsVisitor(dependencies, myStage.ordinal() < Stage.WITHOUT_BODIES.ordinal());
     if (myStage.ordinal() < Stage.WITHOUT_USE.ordinal()) {
       if (myStage.ordinal() < Stage.WITHOUT_INSTANCES.ordinal()) {
         InstanceProvider instanceProvider = myInstanceProviderSet.get(definition.getData());
         if (instanceProvider != null) {
           instanceProvider.findInstance(instance -> {
-            visitor.addDependency(instance);
+            dependencies.add(instance);
             return false;
           });
         }
       }
-      for (TCReferable usedDefinition : definition.getUsedDefinitions()) {
-        visitor.addDependency(usedDefinition);
-      }
+      dependencies.addAll(definition.getUsedDefinitions());
     }
 
     if (definition.getEnclosingClass() != null) {
-      visitor.addDependency(definition.getEnclosingClass());
+      dependencies.add(definition.getEnclosingClass());
     }
     if (definition instanceof Concrete.CoClauseFunctionDefinition) {
       Referable ref = ((Concrete.CoClauseFunctionDefinition) definition).getImplementedField();
       if (ref instanceof TCReferable) {
-        visitor.addDependency((TCReferable) ref);
+        dependencies.add((TCReferable) ref);
       }
     }
     if (definition instanceof Concrete.UseDefinition && (!(definition instanceof Concrete.CoClauseFunctionDefinition) || ((Concrete.CoClauseFunctionDefinition) definition).getKind() == FunctionKind.CLASS_COCLAUSE)) {
-      visitor.addDependency(((Concrete.UseDefinition) definition).getUseParent());
+      dependencies.add(((Concrete.UseDefinition) definition).getUseParent());
     }
-    definition.accept(visitor, null);
+    dependencies.addAll(CollectDefCallsVisitor.getDefCalls(definition, myStage.ordinal() < Stage.WITHOUT_BODIES.ordinal()));
 
     boolean withLoops = false;
     for (TCReferable referable : dependencies) {
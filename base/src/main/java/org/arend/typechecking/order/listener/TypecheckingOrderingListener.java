@@ -203,9 +203,7 @@ public class TypecheckingOrderingListener extends BooleanComputationRunner imple
 
     Concrete.Definition definition = (Concrete.Definition) resolvableDefinition;
     if (recursive) {
-      Set<TCReferable> dependencies = new HashSet<>();
-      definition.accept(new CollectDefCallsVisitor(dependencies, false), null);
-      if (dependencies.contains(definition.getData())) {
+      if (CollectDefCallsVisitor.getDefCalls(definition, false).contains(definition.getData())) {
         typecheckingUnitStarted(definition.getData());
         myErrorReporter.report(new CycleError(Collections.singletonList(definition.getData())));
         typecheckingUnitFinished(definition.getData(), newDefinition(definition));
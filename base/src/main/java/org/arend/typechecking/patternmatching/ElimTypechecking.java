@@ -977,7 +977,7 @@ public class ElimTypechecking {
               Expression someExpr = someConPattern.getDataExpression();
               if (someExpr instanceof ClassCallExpression) {
                 ClassCallExpression classCall = (ClassCallExpression) someExpr;
-                Map<ClassField, Expression> implementations = new HashMap<>();
+                Map<ClassField, Expression> implementations = new ClassFieldMap<>(classCall.getDefinition());
                 DependentLink link = conParameters;
                 for (ClassField field : classCall.getDefinition().getFields()) {
                   if (!classCall.isImplemented(field)) {
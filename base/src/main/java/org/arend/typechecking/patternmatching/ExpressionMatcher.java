@@ -4,6 +4,7 @@ import org.arend.core.context.binding.Binding;
 import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.definition.ClassField;
+import org.arend.core.definition.ClassFieldMap;
 import org.arend.core.definition.Constructor;
 import org.arend.core.expr.*;
 import org.arend.core.pattern.*;
@@ -45,7 +46,7 @@ public class ExpressionMatcher {
     }
 
     int i = 0;
-    Map<ClassField, Expression> newImpls = new HashMap<>();
+    Map<ClassField, Expression> newImpls = new ClassFieldMap<>(newExpr.getClassCall().getDefinition());
     for (ClassField field : ((ClassCallExpression) data).getDefinition().getFields()) {
       if (((ClassCallExpression) data).isImplemented(field)) {
         newImpls.put(field, newExpr.getImplementation(field));
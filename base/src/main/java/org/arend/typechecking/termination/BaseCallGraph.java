@@ -107,47 +107,77 @@ public abstract class BaseCallGraph<T> {
     }
   }
 
-  public boolean checkTermination() {
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> newGraph;
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> oldGraph = myGraph;
-    int myNewEdges;
-    boolean result = true;
+  private static <T> boolean contains(BaseCallMatrix<T> cm, HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph) {
+    HashMap<T, HashSet<BaseCallMatrix<T>>> map = graph.get(cm.getDomain());
+    HashSet<BaseCallMatrix<T>> set = map == null ? null : map.get(cm.getCodomain());
+    return set != null && set.contains(cm);
+  }
 
-    do {
-      myNewEdges = 0;
-      newGraph = new HashMap<>();
+  /*
+   * The closure is computed in rounds as before, but each round composes only pairs of edges in which at least one edge
+   * was added in the previous round, and only vertices which got new loops are checked.
+   * Edges which were not added in the previous round have already been composed with each other.
+   */
+  public boolean checkTermination() {
+    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph = new HashMap<>();
+    List<BaseCallMatrix<T>> delta = new ArrayList<>();
+    for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges : myGraph.values()) {
+      for (HashSet<BaseCallMatrix<T>> homSet : outboundEdges.values()) {
+        for (BaseCallMatrix<T> edge : homSet) {
+          if (append(edge, graph)) {
+            delta.add(edge);
+          }
+        }
+      }
+    }
 
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundArrows = oldGraph.get(vDom);
-        for (T vCodom : outboundArrows.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundArrows.get(vCodom)) {
-            append(edge, newGraph);
+    Set<T> verticesToCheck = new HashSet<>(graph.keySet());
+    boolean result = true;
+    while (!delta.isEmpty() && result) {
+      HashMap<T, List<BaseCallMatrix<T>>> outbound = new HashMap<>();
+      HashMap<T, List<BaseCallMatrix<T>>> inbound = new HashMap<>();
+      for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges : graph.values()) {
+        for (HashSet<BaseCallMatrix<T>> homSet : outboundEdges.values()) {
+          for (BaseCallMatrix<T> edge : homSet) {
+            outbound.computeIfAbsent(edge.getDomain(), k -> new ArrayList<>()).add(edge);
+            inbound.computeIfAbsent(edge.getCodomain(), k -> new ArrayList<>()).add(edge);
           }
         }
       }
 
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> arrow : outboundEdges.get(vCodom)) {
-            HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges2 = oldGraph.get(arrow.getCodomain());
-            if (outboundEdges2 != null) {
-              ComputationRunner.checkCanceled();
-              for (HashSet<BaseCallMatrix<T>> homSet : outboundEdges2.values()) {
-                for (BaseCallMatrix<T> arrow2 : homSet) {
-                  if (append(new CompositeCallMatrix<>(arrow, arrow2), newGraph)) {
-                    myNewEdges++;
-                  }
-                }
-              }
+      Set<BaseCallMatrix<T>> deltaSet = Collections.newSetFromMap(new IdentityHashMap<>());
+      deltaSet.addAll(delta);
+      List<BaseCallMatrix<T>> added = new ArrayList<>();
+      for (BaseCallMatrix<T> edge : delta) {
+        ComputationRunner.checkCanceled();
+        for (BaseCallMatrix<T> edge2 : outbound.getOrDefault(edge.getCodomain(), Collections.emptyList())) {
+          BaseCallMatrix<T> composite = new CompositeCallMatrix<>(edge, edge2);
+          if (append(composite, graph)) {
+            added.add(composite);
+          }
+        }
+        for (BaseCallMatrix<T> edge0 : inbound.getOrDefault(edge.getDomain(), Collections.emptyList())) {
+          if (!deltaSet.contains(edge0)) {
+            BaseCallMatrix<T> composite = new CompositeCallMatrix<>(edge0, edge);
+            if (append(composite, graph)) {
+              added.add(composite);
             }
           }
         }
       }
-      oldGraph = newGraph;
 
-      for (T v : newGraph.keySet()) {
-        RecursiveBehaviors<T> rbs = new RecursiveBehaviors<>(newGraph, v);
+      delta = new ArrayList<>();
+      for (BaseCallMatrix<T> edge : added) {
+        if (contains(edge, graph)) {
+          delta.add(edge);
+          if (edge.getDomain() == edge.getCodomain()) {
+            verticesToCheck.add(edge.getDomain());
+          }
+        }
+      }
+
+      for (T v : verticesToCheck) {
+        RecursiveBehaviors<T> rbs = new RecursiveBehaviors<>(graph, v);
         List<String> order = rbs.findTerminationOrderAnnotated();
         if (order == null) {
           HashSet<RecursiveBehavior<T>> rbs2 = new HashSet<>();
@@ -158,7 +188,8 @@ public abstract class BaseCallGraph<T> {
           result = false;
         }
       }
-    } while (myNewEdges > 0 && result);
+      verticesToCheck.clear();
+    }
 
     return result;
   }
@@ -5,8 +5,8 @@ import org.arend.ext.prettyprinting.doc.Doc;
 import org.arend.ext.prettyprinting.doc.DocFactory;
 import org.arend.ext.prettyprinting.doc.DocStringBuilder;
 import org.arend.util.StringFormat;
-import java.util.HashMap;
-import java.util.Map;
+
+import java.util.Arrays;
 
 public abstract class BaseCallMatrix<T> {
   public enum R {
@@ -15,36 +15,6 @@ public abstract class BaseCallMatrix<T> {
     LessThan()
   }
 
-  private static BaseCallMatrix.R rmul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    switch (a) {
-      case Equal:
-        switch (b) {
-          case Equal:
-            return BaseCallMatrix.R.Equal;
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      case LessThan:
-        switch (b) {
-          case Equal:
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      default:
-        return BaseCallMatrix.R.Unknown;
-    }
-  }
-
-  private static BaseCallMatrix.R radd(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    if (a == R.LessThan || b == R.LessThan) return R.LessThan;
-    if (a == R.Equal || b == R.Equal) return R.Equal;
-    return R.Unknown;
-  }
-
   static boolean rleq(BaseCallMatrix.R a, BaseCallMatrix.R b) {
     switch (a) {
       case LessThan:
@@ -56,7 +26,14 @@ public abstract class BaseCallMatrix<T> {
     }
   }
 
-  private final HashMap<Integer, HashMap<Integer, BaseCallMatrix.R>> matrixMap = new HashMap<>();
+  /*
+   * Each row is stored as two bitsets packed into longs:
+   * myLe has a bit set if the corresponding cell is either Equal or LessThan,
+   * myLt has a bit set if the cell is LessThan (so myLt is always a subset of myLe).
+   */
+  private final long[] myLe;
+  private final long[] myLt;
+  private final int myWords;
 
   private final int myWidth;
   private final int myHeight;
@@ -64,28 +41,39 @@ public abstract class BaseCallMatrix<T> {
   BaseCallMatrix(int width, int height) {
     myWidth = width;
     myHeight = height;
+    myWords = (width + 63) >>> 6;
+    myLe = new long[height * myWords];
+    myLt = new long[height * myWords];
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m1, BaseCallMatrix<T> m2) {
     // multiplication constructor
+    this(m2.myWidth, m1.myHeight);
     if (m1.myWidth != m2.myHeight) {
       throw new IllegalArgumentException();
     }
-    myHeight = m1.myHeight;
-    myWidth = m2.myWidth;
-
-    for (Integer i : m1.matrixMap.keySet()) {
-      HashMap<Integer, BaseCallMatrix.R> m1map = m1.matrixMap.get(i);
-      for (Integer j : m1map.keySet()) {
-        HashMap<Integer, BaseCallMatrix.R> m2map = m2.matrixMap.get(j);
-        if (m2map != null) for (Map.Entry<Integer, R> e : m2map.entrySet()) {
-          int k = e.getKey();
-          BaseCallMatrix.R ik_value = getValue(i, k);
-          if (ik_value != R.LessThan) {
-            BaseCallMatrix.R ik_summand = rmul(m1map.get(j), e.getValue());
-            BaseCallMatrix.R new_ik_value = radd(ik_value, ik_summand);
-            if (new_ik_value != ik_value) set(i, k, new_ik_value);
+
+    for (int i = 0; i < myHeight; i++) {
+      int row = i * myWords;
+      for (int w = 0; w < m1.myWords; w++) {
+        long le = m1.myLe[i * m1.myWords + w];
+        long lt = m1.myLt[i * m1.myWords + w];
+        while (le != 0) {
+          long bit = le & -le;
+          int j = (w << 6) + Long.numberOfTrailingZeros(bit);
+          int row2 = j * myWords;
+          if ((lt & bit) != 0) {
+            for (int k = 0; k < myWords; k++) {
+              myLe[row + k] |= m2.myLe[row2 + k];
+              myLt[row + k] |= m2.myLe[row2 + k];
+            }
+          } else {
+            for (int k = 0; k < myWords; k++) {
+              myLe[row + k] |= m2.myLe[row2 + k];
+              myLt[row + k] |= m2.myLt[row2 + k];
+            }
           }
+          le ^= bit;
         }
       }
     }
@@ -106,23 +94,33 @@ public abstract class BaseCallMatrix<T> {
   public abstract int getCompositeLength();
 
   public void set(int i, int j, BaseCallMatrix.R v) {
-    if (v != R.Unknown) {
-      HashMap<Integer, BaseCallMatrix.R> map = matrixMap.computeIfAbsent(i, k -> new HashMap<>());
-      map.put(j, v);
-    } else {
-      HashMap<Integer, BaseCallMatrix.R> map = matrixMap.get(i);
-      if (map != null) {
-        map.remove(j);
-      }
+    if (i < 0 || i >= myHeight || j < 0 || j >= myWidth) {
+      throw new IndexOutOfBoundsException();
+    }
+    int index = i * myWords + (j >>> 6);
+    long bit = 1L << j;
+    switch (v) {
+      case LessThan:
+        myLe[index] |= bit;
+        myLt[index] |= bit;
+        break;
+      case Equal:
+        myLe[index] |= bit;
+        myLt[index] &= ~bit;
+        break;
+      default:
+        myLe[index] &= ~bit;
+        myLt[index] &= ~bit;
     }
   }
 
   public BaseCallMatrix.R getValue(int i, int j) {
-    HashMap<Integer, BaseCallMatrix.R> result = matrixMap.get(i);
-    if (result == null) return R.Unknown; else {
-      BaseCallMatrix.R result2 = result.get(j);
-      if (result2 == null) return R.Unknown; else return result2;
+    if (i < 0 || i >= myHeight || j < 0 || j >= myWidth) {
+      return R.Unknown;
     }
+    int index = i * myWords + (j >>> 6);
+    long bit = 1L << j;
+    return (myLt[index] & bit) != 0 ? R.LessThan : (myLe[index] & bit) != 0 ? R.Equal : R.Unknown;
   }
 
   @Override
@@ -130,7 +128,7 @@ public abstract class BaseCallMatrix<T> {
     if (object instanceof BaseCallMatrix) {
       BaseCallMatrix<?> cm = (BaseCallMatrix<?>) object;
       if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) return false;
-      return cm.matrixMap.equals(this.matrixMap);
+      return myWidth == cm.myWidth && Arrays.equals(myLe, cm.myLe) && Arrays.equals(myLt, cm.myLt);
     }
     return false;
   }
@@ -140,13 +138,9 @@ public abstract class BaseCallMatrix<T> {
       BaseCallMatrix<?> cm = (BaseCallMatrix<?>) object;
       if (this.equals(cm)) return R.Equal;
       if (this.getDomain() != cm.getDomain() || this.getCodomain() != cm.getCodomain()) throw new IllegalArgumentException();
-      for (Integer i : matrixMap.keySet()) {
-        HashMap<Integer, R> map = matrixMap.get(i);
-        for (Integer j : map.keySet()) {
-          R my = map.get(j);
-          R theirs = cm.getValue(i, j);
-          if (!rleq(my, theirs)) return R.Unknown;
-        }
+      if (myWidth != cm.myWidth || myHeight != cm.myHeight) return R.Unknown;
+      for (int k = 0; k < myLe.length; k++) {
+        if ((myLe[k] & ~cm.myLe[k]) != 0 || (myLt[k] & ~cm.myLt[k]) != 0) return R.Unknown;
       }
       return R.LessThan;
     }
@@ -156,7 +150,8 @@ public abstract class BaseCallMatrix<T> {
   @Override
   public final int hashCode() {
     int result = getCodomain().hashCode() * 31 + getDomain().hashCode();
-    return result * 31 + matrixMap.hashCode();
+    result = result * 31 + Arrays.hashCode(myLe);
+    return result * 31 + Arrays.hashCode(myLt);
   }
 
   protected String[] getColumnLabels() {
@@ -26,12 +26,20 @@ public class CheckForUniversesVisitor extends SearchVisitor<Void> {
     return visitLevels(expression.getSort().getPLevel(), expression.getSort().getHLevel());
   }
 
+  /**
+   * @return true if the field call is evaluated before its argument is checked.
+   */
+  public static boolean isEvaluated(FieldCallExpression expr) {
+    Expression arg = expr.getArgument();
+    return arg instanceof FunCallExpression && ((FunCallExpression) arg).getDefinition().getResultType() instanceof ClassCallExpression && ((FunCallExpression) arg).getDefinition().status().isOK();
+  }
+
   private boolean visitFieldCall(FieldCallExpression expr, int apps) {
     if (expr.getDefinition().isProperty()) {
       return false;
     }
     Expression arg = expr.getArgument();
-    if (arg instanceof FunCallExpression && ((FunCallExpression) arg).getDefinition().getResultType() instanceof ClassCallExpression && ((FunCallExpression) arg).getDefinition().status().isOK()) {
+    if (isEvaluated(expr)) {
       Expression result = NormalizeVisitor.INSTANCE.evalFieldCall(expr.getDefinition(), arg);
       if (result != null) {
         while (apps > 0 && result instanceof LamExpression) {
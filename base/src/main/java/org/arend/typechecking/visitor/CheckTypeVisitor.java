@@ -44,6 +44,7 @@ import org.arend.ext.instance.SubclassSearchParameters;
 import org.arend.ext.prettyprinting.doc.DocFactory;
 import org.arend.ext.reference.ArendRef;
 import org.arend.ext.typechecking.*;
+import org.arend.ext.userData.Key;
 import org.arend.extImpl.*;
 import org.arend.extImpl.userData.UserDataHolderImpl;
 import org.arend.naming.reference.*;
@@ -54,6 +55,7 @@ import org.arend.term.concrete.ConcreteExpressionVisitor;
 import org.arend.term.concrete.ConcreteLevelExpressionVisitor;
 import org.arend.typechecking.FieldDFS;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.UndoLog;
 import org.arend.typechecking.TypecheckingContext;
 import org.arend.typechecking.computation.ComputationRunner;
 import org.arend.typechecking.doubleChecker.CoreException;
@@ -96,6 +98,8 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
   private final List<DeferredMeta> myDeferredMetasAfterLevels = new ArrayList<>();
   private final ArendExtension myArendExtension;
   private TypecheckerState mySavedState;
+  private final UndoLog myUndoLog = new UndoLog();
+  private final Set<Key<?>> myLoggedUserDataKeys = new HashSet<>();
 
   private static class DeferredMeta {
     final MetaDefinition meta;
@@ -408,7 +412,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
           if (elementsType == null) {
             elementsType = piExpr.getParameters().getNext().hasNext() ? new PiExpression(piExpr.getResultSort(), piExpr.getParameters().getNext(), piExpr.getCodomain()) : piExpr.getCodomain();
           }
-          Map<ClassField, Expression> impls = new HashMap<>();
+          Map<ClassField, Expression> impls = new ClassFieldMap<>(Prelude.ARRAY);
           impls.put(Prelude.ARRAY_ELEMENTS_TYPE, elementsType);
           impls.put(Prelude.ARRAY_LENGTH, length);
           impls.put(Prelude.ARRAY_AT, result.expression);
@@ -1141,7 +1145,7 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
 
   private TypecheckingResult typecheckClassExt(List<? extends Concrete.ClassFieldImpl> classFieldImpls, Expression expectedType, Expression renewExpr, ClassCallExpression classCallExpr, Set<ClassField> pseudoImplemented, Concrete.Expression expr, boolean useDefaults) {
     ClassDefinition baseClass = classCallExpr.getDefinition();
-    Map<ClassField, Expression> fieldSet = new HashMap<>();
+    Map<ClassField, Expression> fieldSet = new ClassFieldMap<>(baseClass);
     ClassCallExpression resultClassCall = new ClassCallExpression(baseClass, classCallExpr.getLevels(), fieldSet, Sort.PROP, baseClass.getUniverseKind());
     resultClassCall.copyImplementationsFrom(classCallExpr);
     resultClassCall.updateHasUniverses();
@@ -3050,15 +3054,53 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     }
   }
 
+  public UndoLog getUndoLog() {
+    return myUndoLog;
+  }
+
   public void variableSolved(InferenceVariable variable) {
-    if (mySavedState != null) {
-      mySavedState.solvedVariables.add(variable);
+    myUndoLog.record(variable::unsolve);
+  }
+
+  private <T> void logUserData(Key<T> key) {
+    if (myUndoLog.isRecording() && myLoggedUserDataKeys.add(key)) {
+      T value = super.getUserData(key);
+      T copy = value == null ? null : key.copy(value);
+      myUndoLog.record(() -> super.putUserData(key, copy));
+    }
+  }
+
+  private <T> void logMutableUserData(Key<T> key) {
+    T value = super.getUserData(key);
+    T copy = value == null ? null : key.copy(value);
+    if (copy != value && myLoggedUserDataKeys.add(key)) {
+      myUndoLog.record(() -> super.putUserData(key, copy));
     }
   }
 
+  /**
+   * Values of user data may be modified in place even if they were obtained before the checkpoint.
+   * So, values that can be copied are logged immediately, and other values are logged when they are replaced.
+   */
+  private void startLoggingUserData() {
+    myLoggedUserDataKeys.clear();
+    if (myUndoLog.isRecording()) {
+      for (Key<?> key : new ArrayList<>(getUserDataMap().keySet())) {
+        logMutableUserData(key);
+      }
+    }
+  }
+
+  @Override
+  public <T> void putUserData(@NotNull Key<T> key, @Nullable T value) {
+    logUserData(key);
+    super.putUserData(key, value);
+  }
+
   private void saveState() {
     ListErrorReporter listErrorReporter = new ListErrorReporter();
-    TypecheckerState state = new TypecheckerState(errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState, listErrorReporter);
+    TypecheckerState state = new TypecheckerState(errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), myUndoLog.checkpoint(), mySavedState, listErrorReporter);
+    startLoggingUserData();
     errorReporter = new MyErrorReporter(listErrorReporter);
     myEquations.saveState(state);
     mySavedState = state;
@@ -3067,10 +3109,8 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
   private void restoreState() {
     mySavedState.listErrorReporter.reportTo(mySavedState.errorReporter);
     errorReporter = mySavedState.errorReporter;
-    if (mySavedState.previousState != null) {
-      mySavedState.previousState.solvedVariables.addAll(mySavedState.solvedVariables);
-    }
     mySavedState = mySavedState.previousState;
+    myUndoLog.release();
   }
 
   @Override
@@ -3091,10 +3131,8 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
 
     mySavedState.listErrorReporter.reportTo(mySavedState.errorReporter);
     mySavedState.listErrorReporter.getErrorList().clear();
-    if (mySavedState.previousState != null) {
-      mySavedState.previousState.solvedVariables.addAll(mySavedState.solvedVariables);
-    }
-    TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), copyUserData(), mySavedState.previousState, mySavedState.listErrorReporter);
+    TypecheckerState state = new TypecheckerState(mySavedState.errorReporter, myDeferredMetasBeforeSolver.size(), myDeferredMetasAfterLevels.size(), myUndoLog.mark(), mySavedState.previousState, mySavedState.listErrorReporter);
+    startLoggingUserData();
     myEquations.saveState(state);
     mySavedState = state;
   }
@@ -3107,13 +3145,8 @@ public class CheckTypeVisitor extends UserDataHolderImpl implements ConcreteExpr
     if (state.numberOfDeferredMetasAfterLevels < myDeferredMetasAfterLevels.size()) {
       myDeferredMetasAfterLevels.subList(state.numberOfDeferredMetasAfterLevels, myDeferredMetasAfterLevels.size()).clear();
     }
-    setUserData(state.userDataHolder);
-
-    for (InferenceVariable var : state.solvedVariables) {
-      var.unsolve();
-    }
-    state.solvedVariables.clear();
-
+    myUndoLog.rollback(state.undoLogMark);
+    startLoggingUserData();
     myEquations.loadState(state);
   }
 
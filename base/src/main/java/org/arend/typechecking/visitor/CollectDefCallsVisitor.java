@@ -15,6 +15,20 @@ public class CollectDefCallsVisitor extends VoidConcreteVisitor<Void, Void> {
     myWithBodies = withBodies;
   }
 
+  /**
+   * Collects definitions referred to in {@code definition}.
+   * The result is cached in the definition until it is resolved, desugared, or typechecked again.
+   */
+  public static Set<TCReferable> getDefCalls(Concrete.ResolvableDefinition definition, boolean withBodies) {
+    Set<TCReferable> result = definition.getCachedDefCalls(withBodies);
+    if (result == null) {
+      result = new LinkedHashSet<>();
+      definition.accept(new CollectDefCallsVisitor(result, withBodies), null);
+      definition.setCachedDefCalls(withBodies, result);
+    }
+    return result;
+  }
+
   public void addDependency(TCReferable dependency) {
     myDependencies.add(dependency);
   }
@@ -43,6 +43,7 @@ import org.arend.typechecking.FieldDFS;
 import org.arend.typechecking.covariance.ParametersCovarianceChecker;
 import org.arend.typechecking.covariance.RecursiveDataChecker;
 import org.arend.typechecking.covariance.UniverseInParametersChecker;
+import org.arend.typechecking.covariance.UniverseKindAnalysis;
 import org.arend.typechecking.covariance.UniverseKindChecker;
 import org.arend.typechecking.error.CycleError;
 import org.arend.typechecking.error.ErrorReporterCounter;
@@ -1092,7 +1093,7 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
                   }
                 }
                 if (hasProperties) {
-                  Map<ClassField, Expression> resultTypeImpls = new HashMap<>();
+                  Map<ClassField, Expression> resultTypeImpls = new ClassFieldMap<>(result.proj2.getDefinition());
                   resultType = new ClassCallExpression(result.proj2.getDefinition(), result.proj2.getLevels(), resultTypeImpls, Sort.PROP, UniverseKind.NO_UNIVERSES);
                   ExprSubstitution substitution = new ExprSubstitution(result.proj2.getThisBinding(), new ReferenceExpression(resultType.getThisBinding()));
                   for (Map.Entry<ClassField, Expression> entry : result.proj2.getImplementedHere().entrySet()) {
@@ -1181,19 +1182,27 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
         elimBody = null;
       }
 
-      GoodThisParametersVisitor goodThisParametersVisitor;
-      if (elimBody != null) {
-        goodThisParametersVisitor = new GoodThisParametersVisitor(typedDef.getGoodThisParameters(), elimBody, DependentLink.Helper.size(typedDef.getParameters()));
-      } else {
-        goodThisParametersVisitor = new GoodThisParametersVisitor(typedDef.getGoodThisParameters(), typedDef.getParameters());
-        goodThisParametersVisitor.visitBody(typedDef.getActualBody(), null);
-      }
-      typedDef.setGoodThisParameters(goodThisParametersVisitor.getGoodParameters());
+      // The body is traversed once for all analyses
+      List<ExpressionAnalysis> analyses = new ArrayList<>(2);
+      GoodThisParametersAnalysis goodThisParametersAnalysis = elimBody != null
+        ? new GoodThisParametersAnalysis(typedDef.getGoodThisParameters(), DependentLink.Helper.size(typedDef.getParameters()))
+        : new GoodThisParametersAnalysis(typedDef.getGoodThisParameters(), typedDef.getParameters());
+      analyses.add(goodThisParametersAnalysis);
 
+      UniverseKindAnalysis universeKindAnalysis = null;
       if (checkForUniverses(typedDef.getParameters()) || new UniverseKindChecker().check(typedDef.getResultType())) {
         typedDef.setUniverseKind(UniverseKind.WITH_UNIVERSES);
+      } else if (typedDef.getBody() != null) {
+        universeKindAnalysis = new UniverseKindAnalysis();
+        analyses.add(universeKindAnalysis);
       } else {
-        typedDef.setUniverseKind(new UniverseKindChecker().getUniverseKind(typedDef.getBody()));
+        typedDef.setUniverseKind(UniverseKind.NO_UNIVERSES);
+      }
+
+      new AnalysisVisitor(analyses).analyzeBody(typedDef.getActualBody());
+      typedDef.setGoodThisParameters(goodThisParametersAnalysis.getGoodParameters());
+      if (universeKindAnalysis != null) {
+        typedDef.setUniverseKind(universeKindAnalysis.getUniverseKind());
       }
     }
 
@@ -1319,8 +1328,8 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
       Definition fieldDef = fieldRef instanceof TCDefReferable ? ((TCDefReferable) fieldRef).getTypechecked() : null;
       Definition useParent = def.getUseParent().getTypechecked();
       if (fieldDef instanceof ClassField && useParent instanceof ClassDefinition) {
-        Map<ClassField, Expression> defaultImpl = new HashMap<>();
         ClassDefinition classDef = (ClassDefinition) useParent;
+        Map<ClassField, Expression> defaultImpl = new ClassFieldMap<>(classDef);
         ClassCallExpression thisType = new ClassCallExpression(classDef, LevelPair.STD, defaultImpl, classDef.getSort(), classDef.getUniverseKind());
         for (Map.Entry<ClassField, AbsExpression> entry : classDef.getDefaults()) {
           defaultImpl.put(entry.getKey(), entry.getValue().apply(new ReferenceExpression(thisType.getThisBinding()), LevelPair.STD));
@@ -0,0 +1,87 @@
+package org.arend.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes to a temporary file and replaces the target file with it when the stream is closed.
+ * Readers never see a partially written file; if writing fails, the target file is left untouched.
+ */
+public class AtomicFileOutputStream extends FilterOutputStream {
+  private final Path myFile;
+  private final Path myTmpFile;
+  private boolean myFailed;
+  private boolean myClosed;
+
+  public AtomicFileOutputStream(Path file) throws IOException {
+    this(file, file.resolveSibling(file.getFileName() + ".tmp"));
+  }
+
+  private AtomicFileOutputStream(Path file, Path tmpFile) throws IOException {
+    super(Files.newOutputStream(tmpFile));
+    myFile = file;
+    myTmpFile = tmpFile;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    try {
+      out.write(b);
+    } catch (IOException e) {
+      myFailed = true;
+      throw e;
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    try {
+      out.write(b, off, len);
+    } catch (IOException e) {
+      myFailed = true;
+      throw e;
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      myFailed = true;
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (myClosed) {
+      return;
+    }
+    myClosed = true;
+
+    try {
+      out.close();
+    } catch (IOException e) {
+      myFailed = true;
+      throw e;
+    } finally {
+      if (myFailed) {
+        Files.deleteIfExists(myTmpFile);
+      }
+    }
+    if (myFailed) {
+      return;
+    }
+
+    try {
+      Files.move(myTmpFile, myFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(myTmpFile, myFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
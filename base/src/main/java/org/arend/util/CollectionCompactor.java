@@ -0,0 +1,116 @@
+package org.arend.util;
+
+import java.util.*;
+
+/**
+ * Replaces collections that are not modified anymore with more compact ones.
+ * Compact maps and sets are immutable, so their owners must copy them before modification.
+ *
+ * The number of saved bytes is estimated for a 64-bit JVM with compressed references.
+ * Slack of array lists is not included in the estimate since their capacity is unknown.
+ */
+public class CollectionCompactor {
+  private static final int HASH_MAP_SIZE = 48;
+  private static final int LINKED_HASH_MAP_SIZE = 56;
+  private static final int HASH_SET_SIZE = 16;
+  private static final int NODE_SIZE = 32;
+  private static final int LINKED_NODE_SIZE = 40;
+  private static final int ARRAY_HEADER_SIZE = 16;
+  private static final int REFERENCE_SIZE = 4;
+  private static final int SINGLETON_SIZE = 24;
+  private static final int IMMUTABLE_COLLECTION_SIZE = 24;
+
+  private long myBytesSaved;
+
+  public long getBytesSaved() {
+    return myBytesSaved;
+  }
+
+  /**
+   * Compacts an unordered map.
+   */
+  public <K, V> Map<K, V> map(Map<K, V> map) {
+    if (!(map instanceof HashMap) || hasNull(map.keySet()) || hasNull(map.values())) {
+      return map;
+    }
+
+    int size = map.size();
+    myBytesSaved += hashMapSize(map) - (size == 0 ? 0 : size == 1 ? SINGLETON_SIZE : IMMUTABLE_COLLECTION_SIZE + arraySize(4 * size));
+    return size == 0 ? Collections.emptyMap() : size == 1 ? singletonMap(map) : Map.copyOf(map);
+  }
+
+  /**
+   * Compacts an unordered set.
+   */
+  public <T> Set<T> set(Set<T> set) {
+    if (!(set instanceof HashSet) || hasNull(set)) {
+      return set;
+    }
+
+    int size = set.size();
+    myBytesSaved += hashSetSize(set) - (size == 0 ? 0 : size <= 2 ? SINGLETON_SIZE : IMMUTABLE_COLLECTION_SIZE + arraySize(2 * size));
+    return size == 0 ? Collections.emptySet() : size == 1 ? Collections.singleton(set.iterator().next()) : Set.copyOf(set);
+  }
+
+  /**
+   * Compacts a set which order matters.
+   * Only empty sets and singletons can be compacted.
+   */
+  public <T> Set<T> orderedSet(Set<T> set) {
+    if (!(set instanceof LinkedHashSet) || set.size() > 1) {
+      return set;
+    }
+
+    myBytesSaved += hashSetSize(set) - (set.isEmpty() ? 0 : SINGLETON_SIZE);
+    return set.isEmpty() ? Collections.emptySet() : Collections.singleton(set.iterator().next());
+  }
+
+  /**
+   * Trims the capacity of a list.
+   * Unlike other methods, the list stays mutable.
+   */
+  public <T> List<T> list(List<T> list) {
+    if (list instanceof ArrayList) {
+      ((ArrayList<T>) list).trimToSize();
+    }
+    return list;
+  }
+
+  private static boolean hasNull(Collection<?> collection) {
+    for (Object obj : collection) {
+      if (obj == null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static <K, V> Map<K, V> singletonMap(Map<K, V> map) {
+    Map.Entry<K, V> entry = map.entrySet().iterator().next();
+    return Collections.singletonMap(entry.getKey(), entry.getValue());
+  }
+
+  private static long arraySize(int length) {
+    return ARRAY_HEADER_SIZE + (long) REFERENCE_SIZE * length;
+  }
+
+  private static long hashMapSize(Map<?, ?> map) {
+    int size = map.size();
+    boolean linked = map instanceof LinkedHashMap;
+    return (linked ? LINKED_HASH_MAP_SIZE : HASH_MAP_SIZE) + (size == 0 ? 0 : arraySize(tableSize(size)) + (long) (linked ? LINKED_NODE_SIZE : NODE_SIZE) * size);
+  }
+
+  private static long hashSetSize(Set<?> set) {
+    int size = set.size();
+    boolean linked = set instanceof LinkedHashSet;
+    return HASH_SET_SIZE + (linked ? LINKED_HASH_MAP_SIZE : HASH_MAP_SIZE) + (size == 0 ? 0 : arraySize(tableSize(size)) + (long) (linked ? LINKED_NODE_SIZE : NODE_SIZE) * size);
+  }
+
+  private static int tableSize(int size) {
+    int capacity = 16;
+    while (capacity * 3 / 4 < size) {
+      capacity *= 2;
+    }
+    return capacity;
+  }
+}
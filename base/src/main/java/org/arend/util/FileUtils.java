@@ -19,6 +19,7 @@ import java.util.regex.Pattern;
 public class FileUtils {
   public static final String EXTENSION = ".ard";
   public static final String SERIALIZED_EXTENSION = ".arc";
+  public static final String BINARY_BUNDLE_FILE = "bundle.arb";
   public static final String LIBRARY_CONFIG_FILE = "arend.yaml";
   public static final String USER_CONFIG_DIR = ".arend";
   public static final String ZIP_EXTENSION = ".zip";
@@ -0,0 +1,131 @@
+package org.arend.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of a zip file that is built from its central directory.
+ * It allows to read stored (uncompressed) entries directly from a buffer with the content of the file.
+ */
+public class ZipIndex {
+  private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+  private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+  private static final int LOCAL_FILE_HEADER = 0x04034b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+  private static final int STORED = 0;
+
+  private final ByteBuffer myBuffer;
+  private final Map<String, Entry> myEntries;
+
+  private static class Entry {
+    final int method;
+    final long compressedSize;
+    final long localHeaderOffset;
+
+    Entry(int method, long compressedSize, long localHeaderOffset) {
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+
+  private ZipIndex(ByteBuffer buffer, Map<String, Entry> entries) {
+    myBuffer = buffer;
+    myEntries = entries;
+  }
+
+  /**
+   * Reads the central directory of a zip file.
+   *
+   * @param buffer  the content of the file.
+   * @return the index or null if the file is not a zip file or uses features that are not supported such as zip64.
+   */
+  public static @Nullable ZipIndex read(@NotNull ByteBuffer buffer) {
+    ByteBuffer data = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int limit = data.limit();
+
+    int end = -1;
+    for (int i = limit - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0 && i >= limit - END_OF_CENTRAL_DIRECTORY_SIZE - 0xFFFF; i--) {
+      if (data.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+        end = i;
+        break;
+      }
+    }
+    if (end < 0) {
+      return null;
+    }
+
+    int count = Short.toUnsignedInt(data.getShort(end + 10));
+    long size = Integer.toUnsignedLong(data.getInt(end + 12));
+    long offset = Integer.toUnsignedLong(data.getInt(end + 16));
+    if (count == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL || offset + size > end) {
+      return null;
+    }
+
+    Map<String, Entry> entries = new HashMap<>();
+    int pos = (int) offset;
+    for (int i = 0; i < count; i++) {
+      if (pos + 46 > end || data.getInt(pos) != CENTRAL_DIRECTORY_HEADER) {
+        return null;
+      }
+      int method = Short.toUnsignedInt(data.getShort(pos + 10));
+      long compressedSize = Integer.toUnsignedLong(data.getInt(pos + 20));
+      int nameLength = Short.toUnsignedInt(data.getShort(pos + 28));
+      int extraLength = Short.toUnsignedInt(data.getShort(pos + 30));
+      int commentLength = Short.toUnsignedInt(data.getShort(pos + 32));
+      long localHeaderOffset = Integer.toUnsignedLong(data.getInt(pos + 42));
+      if (pos + 46 + nameLength > end) {
+        return null;
+      }
+
+      byte[] name = new byte[nameLength];
+      data.position(pos + 46);
+      data.get(name);
+      entries.put(new String(name, StandardCharsets.UTF_8), new Entry(method, compressedSize, localHeaderOffset));
+      pos += 46 + nameLength + extraLength + commentLength;
+    }
+
+    return new ZipIndex(buffer, entries);
+  }
+
+  public boolean containsEntry(String name) {
+    return myEntries.containsKey(name);
+  }
+
+  public @NotNull Collection<String> getEntryNames() {
+    return myEntries.keySet();
+  }
+
+  /**
+   * Gets the content of a stored entry without copying it.
+   *
+   * @return the content of the entry or null if the entry does not exist or is compressed.
+   */
+  public @Nullable ByteBuffer getStoredEntry(String name) {
+    Entry entry = myEntries.get(name);
+    if (entry == null || entry.method != STORED) {
+      return null;
+    }
+
+    ByteBuffer data = myBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    long headerOffset = entry.localHeaderOffset;
+    if (headerOffset + 30 > data.limit() || data.getInt((int) headerOffset) != LOCAL_FILE_HEADER) {
+      return null;
+    }
+    long dataOffset = headerOffset + 30 + Short.toUnsignedInt(data.getShort((int) headerOffset + 26)) + Short.toUnsignedInt(data.getShort((int) headerOffset + 28));
+    if (dataOffset + entry.compressedSize > data.limit()) {
+      return null;
+    }
+
+    ByteBuffer result = myBuffer.duplicate();
+    result.limit((int) (dataOffset + entry.compressedSize)).position((int) dataOffset);
+    return result.slice();
+  }
+}
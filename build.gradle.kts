@@ -87,8 +87,10 @@ tasks.withType<Wrapper> {
 dependencies {
     testImplementation("org.jetbrains:annotations:$annotationsVersion")
     testImplementation("org.antlr:antlr4-runtime:$antlrVersion")
+    testImplementation("com.google.protobuf:protobuf-java:$protobufVersion")
 
     testImplementation(project(":base"))
+    testImplementation(project(":proto"))
     testImplementation(project(":parser"))
     testImplementation(project(":cli"))
 
@@ -11,6 +11,8 @@ import org.arend.ext.prettyprinting.PrettyPrinterFlag;
 import org.arend.extImpl.DefinitionRequester;
 import org.arend.frontend.library.FileSourceLibrary;
 import org.arend.frontend.library.TimedLibraryManager;
+import org.arend.frontend.parser.StatementsParser;
+import org.arend.frontend.reference.ConcreteLocatedReferable;
 import org.arend.frontend.repl.PlainCliRepl;
 import org.arend.frontend.repl.jline.JLineCliRepl;
 import org.arend.library.*;
@@ -23,9 +25,11 @@ import org.arend.naming.scope.EmptyScope;
 import org.arend.naming.scope.Scope;
 import org.arend.prelude.Prelude;
 import org.arend.prelude.PreludeResourceLibrary;
+import org.arend.source.BinaryCodec;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.group.Group;
 import org.arend.term.prettyprint.PrettyPrinterConfigWithRenamer;
+import org.arend.typechecking.CoreCompactor;
 import org.arend.typechecking.LibraryArendExtensionProvider;
 import org.arend.typechecking.doubleChecker.CoreModuleChecker;
 import org.arend.typechecking.error.local.GoalError;
@@ -81,6 +85,8 @@ public abstract class BaseCliFrontend {
   private class MyTypechecking extends TypecheckingOrderingListener {
     private int total;
     private int failed;
+    private BackgroundPersister myPersister;
+    private boolean myReleaseConcrete;
 
     MyTypechecking() {
       super(myLibraryManager.getInstanceProviderSet(), ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myErrorReporter, myDependencyCollector, PositionComparator.INSTANCE, new LibraryArendExtensionProvider(myLibraryManager));
@@ -137,6 +143,17 @@ public abstract class BaseCliFrontend {
 
     private void update(Definition definition) {
       flushErrors();
+      CoreCompactor compactor = myLibraryManager.getCoreCompactor();
+      if (compactor != null) {
+        ModuleLocation location = definition.getRef().getLocation();
+        compactor.compact(location == null ? null : location.getModulePath(), definition);
+      }
+      if (myPersister != null) {
+        myPersister.definitionTypechecked(definition.getRef());
+        if (myReleaseConcrete) {
+          releaseConcrete(myPersister);
+        }
+      }
 
       LocatedReferable parent = definition.getRef().getLocatedReferableParent();
       if (parent == null || parent instanceof ModuleReferable) {
@@ -153,6 +170,52 @@ public abstract class BaseCliFrontend {
     }
   }
 
+  private void reportCompaction() {
+    CoreCompactor compactor = myLibraryManager.getCoreCompactor();
+    if (compactor == null) {
+      return;
+    }
+
+    Map<ModulePath, Long> bytesSaved = compactor.getBytesSaved();
+    if (bytesSaved.isEmpty()) {
+      return;
+    }
+
+    System.out.println();
+    long total = 0;
+    for (Map.Entry<ModulePath, Long> entry : bytesSaved.entrySet()) {
+      System.out.println("[INFO] Compacted " + entry.getKey() + ": " + bytesToString(entry.getValue()));
+      total += entry.getValue();
+    }
+    System.out.println("[INFO] Compaction saved " + bytesToString(total) + " in " + bytesSaved.size() + " modules");
+    compactor.clear();
+  }
+
+  private static String bytesToString(long bytes) {
+    return bytes < 10 * 1024 ? bytes + " B" : bytes / 1024 + " KB";
+  }
+
+  /**
+   * Drops concrete definitions of modules that were typechecked and persisted.
+   */
+  public static void releaseConcrete(BackgroundPersister persister) {
+    for (ModulePath module : persister.pollPersistedModules()) {
+      Group group = persister.getLibrary().getModuleGroup(module, false);
+      if (group != null) {
+        group.traverseGroup(subgroup -> {
+          if (subgroup.getReferable() instanceof ConcreteLocatedReferable) {
+            ((ConcreteLocatedReferable) subgroup.getReferable()).releaseDefinition();
+          }
+          for (Group.InternalReferable internalRef : subgroup.getInternalReferables()) {
+            if (internalRef.getReferable() instanceof ConcreteLocatedReferable) {
+              ((ConcreteLocatedReferable) internalRef.getReferable()).releaseDefinition();
+            }
+          }
+        });
+      }
+    }
+  }
+
   public boolean isExitWithError() {
     return myExitWithError;
   }
@@ -173,6 +236,13 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption("t", "test", false, "run tests");
       cmdOptions.addOption("v", "version", false, "print language version");
       cmdOptions.addOption(Option.builder().longOpt("show-times").build());
+      cmdOptions.addOption(Option.builder().longOpt("release-concrete").desc("drop concrete syntax of definitions after they are typechecked and persisted").build());
+      cmdOptions.addOption(Option.builder().longOpt("compact-core").desc("compact core definitions after they are typechecked or loaded and report saved memory").build());
+      cmdOptions.addOption(Option.builder().longOpt("ll-parsing").desc("parse files only in the full LL mode").build());
+      cmdOptions.addOption(Option.builder().longOpt("binary-codec").hasArg().argName("codec").desc("codec of persisted modules: none, gzip (default), deflate, or deflate:level").build());
+      cmdOptions.addOption(Option.builder().longOpt("loading-threads").hasArg().argName("n").desc("number of threads that load independent dependencies (default 1)").build());
+      cmdOptions.addOption(Option.builder().longOpt("resolving-threads").hasArg().argName("n").desc("number of threads that resolve names in independent modules (default 1)").build());
+      cmdOptions.addOption(Option.builder().longOpt("bundle").desc("pack binaries of the library into a single file").build());
       addCommandOptions(cmdOptions);
       CommandLine cmdLine = new DefaultParser().parse(cmdOptions, args);
 
@@ -196,6 +266,22 @@ public abstract class BaseCliFrontend {
 
   protected void addCommandOptions(Options cmdOptions) {}
 
+  private Integer parseThreadsOption(CommandLine cmdLine, String option) {
+    String value = cmdLine.getOptionValue(option);
+    if (value == null) {
+      return null;
+    }
+    try {
+      int threads = Integer.parseInt(value);
+      if (threads >= 1) {
+        return threads;
+      }
+    } catch (NumberFormatException ignored) {}
+    myExitWithError = true;
+    System.err.println("[ERROR] Incorrect number of threads for --" + option + ": " + value);
+    return null;
+  }
+
   public CommandLine run(String[] args) {
     CommandLine cmdLine = parseArgs(args);
     if (cmdLine == null) {
@@ -224,6 +310,10 @@ public abstract class BaseCliFrontend {
       myTimes = new HashMap<>();
     }
 
+    if (cmdLine.hasOption("ll-parsing")) {
+      StatementsParser.setTwoStage(false);
+    }
+
     String recompileString = cmdLine.getOptionValue("r");
     ModulePath recompileModule = null;
     LongName recompileDef = null;
@@ -245,6 +335,29 @@ public abstract class BaseCliFrontend {
     }
 
     boolean recompile = recompileString == null && cmdLine.hasOption("r");
+
+    String codecString = cmdLine.getOptionValue("binary-codec");
+    BinaryCodec binaryCodec = null;
+    if (codecString != null) {
+      binaryCodec = BinaryCodec.fromString(codecString);
+      if (binaryCodec == null) {
+        myExitWithError = true;
+        System.err.println("[ERROR] Unrecognized binary codec: " + codecString);
+      }
+    }
+
+    Integer loadingThreads = parseThreadsOption(cmdLine, "loading-threads");
+    if (loadingThreads != null) {
+      myLibraryManager.setLoadingThreads(loadingThreads);
+    }
+    Integer resolvingThreads = parseThreadsOption(cmdLine, "resolving-threads");
+    if (resolvingThreads != null) {
+      myLibraryManager.setResolvingThreads(resolvingThreads);
+    }
+    if (cmdLine.hasOption("compact-core")) {
+      myLibraryManager.setCoreCompactor(new CoreCompactor());
+    }
+
     if (cmdLine.hasOption("i")) {
       switch (replKind.toLowerCase()) {
         default:
@@ -354,12 +467,16 @@ public abstract class BaseCliFrontend {
 
     // Load and typecheck libraries
     MyTypechecking typechecking = new MyTypechecking();
+    typechecking.myReleaseConcrete = cmdLine.hasOption("release-concrete");
     boolean doubleCheck = cmdLine.hasOption("c");
     for (SourceLibrary library : requestedLibraries) {
       myModuleResults.clear();
       if (recompile) {
         library.addFlag(SourceLibrary.Flag.RECOMPILE);
       }
+      if (binaryCodec != null && library instanceof FileSourceLibrary) {
+        ((FileSourceLibrary) library).setBinaryCodec(binaryCodec);
+      }
       if (!myLibraryManager.loadLibrary(library, typechecking)) {
         continue;
       }
@@ -422,6 +539,9 @@ public abstract class BaseCliFrontend {
       if (!modules.isEmpty() || forcedDefs != null) {
         System.out.println();
         System.out.println("--- Typechecking " + library.getName() + " ---");
+        // Modules are persisted in the background as soon as they are typechecked
+        BackgroundPersister persister = library.supportsPersisting() ? new BackgroundPersister(library) : null;
+        typechecking.myPersister = persister;
         long time = System.currentTimeMillis();
         if (forcedDefs == null) {
           typechecking.typecheckLibrary(library);
@@ -429,6 +549,7 @@ public abstract class BaseCliFrontend {
           typechecking.typecheckDefinitions(forcedDefs, null);
         }
         time = System.currentTimeMillis() - time;
+        typechecking.myPersister = null;
         flushErrors();
 
         // Output nice per-module typechecking results
@@ -464,12 +585,21 @@ public abstract class BaseCliFrontend {
           }
         }
 
-        // Persist updated modules
-        if (library.supportsPersisting()) {
-          library.persistUpdatedModules(mySystemErrErrorReporter);
+        // Wait until updated modules are persisted
+        if (persister != null) {
+          persister.finish(mySystemErrErrorReporter);
+          if (typechecking.myReleaseConcrete) {
+            releaseConcrete(persister);
+          }
         }
       }
 
+      reportCompaction();
+
+      if (cmdLine.hasOption("bundle") && library.supportsPersisting() && library instanceof FileSourceLibrary) {
+        ((FileSourceLibrary) library).writeBinaryBundle(mySystemErrErrorReporter, false);
+      }
+
       if (doubleCheck && numWithErrors == 0) {
         System.out.println();
         System.out.println("--- Checking " + library.getName() + " ---");
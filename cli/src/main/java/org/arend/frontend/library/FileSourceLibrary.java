@@ -8,15 +8,18 @@ import org.arend.frontend.ui.ArendCliUI;
 import org.arend.library.LibraryDependency;
 import org.arend.library.LibraryHeader;
 import org.arend.library.PersistableSourceLibrary;
+import org.arend.module.error.ExceptionError;
 import org.arend.source.*;
 import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.util.FileUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 public class FileSourceLibrary extends PersistableSourceLibrary {
   protected Path mySourceBasePath;
@@ -25,6 +28,9 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
   protected LibraryHeader myLibraryHeader;
   protected List<ModulePath> myTestModules = Collections.emptyList();
   private final DependencyListener myDependencyListener;
+  private BinaryCodec myBinaryCodec = BinaryCodec.DEFAULT;
+  private BinaryBundle myBinaryBundle;
+  private boolean myBinaryBundleLoaded;
 
   /**
    * Creates a new {@code UnmodifiableFileSourceLibrary}
@@ -53,6 +59,14 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
     return myTestBasePath;
   }
 
+  /**
+   * Sets the codec which is used to persist modules.
+   * Modules persisted with other codecs can still be loaded.
+   */
+  public void setBinaryCodec(BinaryCodec codec) {
+    myBinaryCodec = codec;
+  }
+
   @Nullable
   @Override
   public final Source getRawSource(ModulePath modulePath) {
@@ -67,7 +81,79 @@ public class FileSourceLibrary extends PersistableSourceLibrary {
   @Nullable
   @Override
   public PersistableBinarySource getPersistableBinarySource(ModulePath modulePath) {
-    return myBinaryBasePath == null ? null : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
+    return myBinaryBasePath == null ? null : new CodecStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath), myBinaryCodec);
+  }
+
+  private BinaryBundle getBinaryBundle() {
+    if (!myBinaryBundleLoaded) {
+      myBinaryBundleLoaded = true;
+      try {
+        myBinaryBundle = myBinaryBasePath == null ? null : BinaryBundle.open(myBinaryBasePath.resolve(FileUtils.BINARY_BUNDLE_FILE));
+      } catch (IOException e) {
+        myBinaryBundle = null;
+      }
+    }
+    return myBinaryBundle;
+  }
+
+  /**
+   * Modules are loaded from the bundle if their binary files still exist and are not newer than the bundle.
+   * A binary file is deleted when its module is removed, so the bundle does not serve removed modules.
+   */
+  @Nullable
+  @Override
+  public BinarySource getBinarySource(ModulePath modulePath) {
+    PersistableBinarySource source = getPersistableBinarySource(modulePath);
+    BinaryBundle bundle = getBinaryBundle();
+    if (bundle != null && source != null && bundle.containsModule(modulePath) && source.isAvailable() && source.getTimeStamp() <= bundle.getTimeStamp()) {
+      return bundle.getBinarySource(modulePath);
+    }
+    return source;
+  }
+
+  /**
+   * Packs binary files of modules of this library into a single bundle.
+   *
+   * @param compressed  if false, modules are stored uncompressed, which makes the bundle larger but faster to load.
+   *
+   * @return true if the operation is successful, false otherwise
+   */
+  public boolean writeBinaryBundle(ErrorReporter errorReporter, boolean compressed) {
+    if (myBinaryBasePath == null || myLibraryHeader == null) {
+      return false;
+    }
+
+    try {
+      Map<ModulePath, byte[]> modules = new LinkedHashMap<>();
+      for (ModulePath modulePath : myLibraryHeader.modules) {
+        Path file = FileUtils.binaryFile(myBinaryBasePath, modulePath);
+        if (!Files.isRegularFile(file)) {
+          continue;
+        }
+        if (compressed) {
+          modules.put(modulePath, Files.readAllBytes(file));
+        } else {
+          try (InputStream stream = BinaryCodec.decode(Files.newInputStream(file))) {
+            modules.put(modulePath, stream.readAllBytes());
+          }
+        }
+      }
+      BinaryBundle.write(myBinaryBasePath.resolve(FileUtils.BINARY_BUNDLE_FILE), modules, compressed);
+      return true;
+    } catch (IOException e) {
+      errorReporter.report(new ExceptionError(e, "bundling of library " + getName()));
+      return false;
+    } finally {
+      myBinaryBundle = null;
+      myBinaryBundleLoaded = false;
+    }
+  }
+
+  @Override
+  public boolean unload() {
+    myBinaryBundle = null;
+    myBinaryBundleLoaded = false;
+    return super.unload();
   }
 
   @Override
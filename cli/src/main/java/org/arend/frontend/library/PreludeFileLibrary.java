@@ -45,7 +45,8 @@ public class PreludeFileLibrary extends PreludeTypecheckingLibrary {
     if (myBinaryPath == null || !modulePath.equals(Prelude.MODULE_PATH)) {
       return null;
     }
-    return new GZIPStreamBinarySource(new FileBinarySource(myBinaryPath.resolve(PreludeResourceSource.BASE_PATH), Prelude.MODULE_PATH));
+    // Prelude is stored in a jar which is already compressed
+    return new CodecStreamBinarySource(new FileBinarySource(myBinaryPath.resolve(PreludeResourceSource.BASE_PATH), Prelude.MODULE_PATH), BinaryCodec.NONE);
   }
 
   @Override
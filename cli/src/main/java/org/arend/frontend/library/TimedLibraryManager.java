@@ -9,10 +9,11 @@ import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Stack;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TimedLibraryManager extends LibraryManager {
-  private final Stack<Long> times = new Stack<>();
+  private final Map<Library, Long> times = new ConcurrentHashMap<>();
 
   public TimedLibraryManager(LibraryResolver libraryResolver, @Nullable InstanceProviderSet instanceProviderSet, ErrorReporter typecheckingErrorReporter, ErrorReporter libraryErrorReporter, DefinitionRequester definitionRequester) {
     super(libraryResolver, instanceProviderSet, typecheckingErrorReporter, libraryErrorReporter, definitionRequester, null);
@@ -33,12 +34,13 @@ public class TimedLibraryManager extends LibraryManager {
   @Override
   protected void beforeLibraryLoading(@NotNull Library library) {
     System.out.println("[INFO] Loading library " + library.getName());
-    times.push(System.currentTimeMillis());
+    times.put(library, System.currentTimeMillis());
   }
 
   @Override
   protected void afterLibraryLoading(@NotNull Library library, boolean successful) {
-    long time = System.currentTimeMillis() - times.pop();
+    Long start = times.remove(library);
+    long time = start == null ? 0 : System.currentTimeMillis() - start;
     System.err.flush();
     System.out.println("[INFO] " + (successful ? "Loaded " : "Failed loading ") + "library " + library.getName() + (successful ? " (" + timeToString(time) + ")" : ""));
   }
@@ -11,12 +11,16 @@ import org.arend.module.error.ExceptionError;
 import org.arend.source.*;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.FileUtils;
+import org.arend.util.ZipIndex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -26,6 +30,10 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
   private String mySourcesDir = "";
   private String myBinariesDir;
   private ZipFile myZipFile;
+  private ZipIndex myZipIndex;
+  private final Map<ModulePath, ZipEntry> myRawEntries = new LinkedHashMap<>();
+  private final Map<ModulePath, ZipEntry> myBinaryEntries = new LinkedHashMap<>();
+  private BinaryBundle myBinaryBundle;
   private ZipClassLoaderDelegate myClassLoaderDelegate;
   private List<LibraryDependency> myDependencies = Collections.emptyList();
   private Set<ModulePath> myModules = Collections.emptySet();
@@ -47,7 +55,7 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
 
   @Override
   public @Nullable Source getRawSource(ModulePath modulePath) {
-    ZipEntry entry = myZipFile.getEntry(mySourcesDir + String.join("/", modulePath.toList()) + FileUtils.EXTENSION);
+    ZipEntry entry = myRawEntries.get(modulePath);
     return entry == null ? null : new ZipFileRawSource(modulePath, myZipFile, entry);
   }
 
@@ -56,8 +64,11 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
     if (myBinariesDir == null) {
       return null;
     }
-    ZipEntry entry = myZipFile.getEntry(myBinariesDir + String.join("/", modulePath.toList()) + FileUtils.SERIALIZED_EXTENSION);
-    return entry == null ? null : new GZIPStreamBinarySource(new ZipFileBinarySource(modulePath, myZipFile, entry));
+    if (myBinaryBundle != null && myModules.contains(modulePath) && myBinaryBundle.containsModule(modulePath)) {
+      return myBinaryBundle.getBinarySource(modulePath);
+    }
+    ZipEntry entry = myBinaryEntries.get(modulePath);
+    return entry == null ? null : new ZipFileBinarySource(modulePath, myZipFile, entry, myZipIndex == null ? null : myZipIndex.getStoredEntry(entry.getName()));
   }
 
   @Override
@@ -71,14 +82,20 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
       return true;
     }
 
-    try (ZipFile zipFile = new ZipFile(myFile)) {
+    try (ZipFile zipFile = new ZipFile(myFile); FileChannel channel = FileChannel.open(myFile.toPath(), StandardOpenOption.READ)) {
       myZipFile = zipFile;
+      // Stored entries are read directly from the mapped file
+      myZipIndex = ZipIndex.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
       return super.load(libraryManager, typechecking);
     } catch (IOException e) {
       libraryManager.getLibraryErrorReporter().report(new ExceptionError(e, "loading of library " + getName()));
       return false;
     } finally {
       myZipFile = null;
+      myZipIndex = null;
+      myBinaryBundle = null;
+      myRawEntries.clear();
+      myBinaryEntries.clear();
       if (myClassLoaderDelegate != null) {
         myClassLoaderDelegate.zipFile = null;
       }
@@ -134,18 +151,43 @@ public class ZipSourceLibrary extends UnmodifiableSourceLibrary {
       }
     }
 
-    if (header.modules == null) {
-      header.modules = new LinkedHashSet<>();
-      Enumeration<? extends ZipEntry> entries = myZipFile.entries();
-      while (entries.hasMoreElements()) {
-        ZipEntry entry = entries.nextElement();
-        String name = entry.getName();
-        if (name.length() > mySourcesDir.length() + FileUtils.EXTENSION.length() && name.startsWith(mySourcesDir) && name.endsWith(FileUtils.EXTENSION)) {
-          header.modules.add(FileUtils.modulePath(name.substring(mySourcesDir.length(), name.length() - FileUtils.EXTENSION.length()).replace('/', '.')));
+    ZipEntry bundleEntry = myBinariesDir == null ? null : myZipFile.getEntry(myBinariesDir + FileUtils.BINARY_BUNDLE_FILE);
+    if (bundleEntry != null) {
+      ByteBuffer buffer = myZipIndex == null ? null : myZipIndex.getStoredEntry(bundleEntry.getName());
+      try {
+        if (buffer == null) {
+          try (InputStream stream = myZipFile.getInputStream(bundleEntry)) {
+            buffer = ByteBuffer.wrap(stream.readAllBytes());
+          }
+        }
+        myBinaryBundle = new BinaryBundle(buffer, 0);
+      } catch (IOException e) {
+        errorReporter.report(new ExceptionError(e, "loading of library " + getName()));
+      }
+    }
+
+    // Build the index of modules once instead of looking up every module in the zip file
+    Enumeration<? extends ZipEntry> entries = myZipFile.entries();
+    while (entries.hasMoreElements()) {
+      ZipEntry entry = entries.nextElement();
+      String name = entry.getName();
+      if (name.length() > mySourcesDir.length() + FileUtils.EXTENSION.length() && name.startsWith(mySourcesDir) && name.endsWith(FileUtils.EXTENSION)) {
+        ModulePath modulePath = FileUtils.modulePath(name.substring(mySourcesDir.length(), name.length() - FileUtils.EXTENSION.length()).replace('/', '.'));
+        if (modulePath != null) {
+          myRawEntries.put(modulePath, entry);
+        }
+      } else if (myBinariesDir != null && name.length() > myBinariesDir.length() + FileUtils.SERIALIZED_EXTENSION.length() && name.startsWith(myBinariesDir) && name.endsWith(FileUtils.SERIALIZED_EXTENSION)) {
+        ModulePath modulePath = FileUtils.modulePath(name.substring(myBinariesDir.length(), name.length() - FileUtils.SERIALIZED_EXTENSION.length()).replace('/', '.'));
+        if (modulePath != null) {
+          myBinaryEntries.put(modulePath, entry);
         }
       }
     }
 
+    if (header.modules == null) {
+      header.modules = new LinkedHashSet<>(myRawEntries.keySet());
+    }
+
     if (config.getExtensionsDir() != null) {
       myClassLoaderDelegate = new ZipClassLoaderDelegate(myFile, myZipFile, config.getExtensionsDir());
       header.classLoaderDelegate = myClassLoaderDelegate;
@@ -159,13 +159,22 @@ public class BuildVisitor extends ArendBaseVisitor<Object> {
 
   @Override
   public FileGroup visitStatements(StatementsContext ctx) {
-    List<Group> subgroups = new ArrayList<>();
-    List<ChildNamespaceCommand> namespaceCommands = new ArrayList<>();
-    FileGroup parentGroup = new FileGroup(new FullModuleReferable(myModule), subgroups, namespaceCommands);
-    visitStatementList(ctx.statement(), subgroups, namespaceCommands, parentGroup, null);
+    FileGroup parentGroup = makeFileGroup();
+    visitStatementList(ctx.statement(), parentGroup.getSubgroups(), parentGroup.getNamespaceCommands(), parentGroup, null);
     return parentGroup;
   }
 
+  public FileGroup makeFileGroup() {
+    return new FileGroup(new FullModuleReferable(myModule), new ArrayList<>(), new ArrayList<>());
+  }
+
+  /**
+   * Adds a top-level statement to a group created by {@link #makeFileGroup}.
+   */
+  public void visitTopLevelStatement(StatementContext ctx, FileGroup group) {
+    visitStatementList(Collections.singletonList(ctx), group.getSubgroups(), group.getNamespaceCommands(), group, null);
+  }
+
   public ChildGroup visitDefinition(DefinitionContext ctx, ChildGroup parent, TCDefReferable enclosingClass) {
     if (ctx instanceof DefFunctionContext) {
       return visitDefFunction((DefFunctionContext) ctx, parent, enclosingClass);
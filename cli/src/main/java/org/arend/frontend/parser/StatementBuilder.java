@@ -0,0 +1,83 @@
+package org.arend.frontend.parser;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.arend.error.CountingErrorReporter;
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.module.ModuleLocation;
+import org.arend.term.group.FileGroup;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A parse listener that builds the concrete group of a file statement by statement.
+ * The parse tree of a top-level statement is removed from the tree as soon as the statement is built,
+ * so the whole parse tree and the whole concrete tree never coexist.
+ *
+ * Statements are built only while there are no syntax errors and errors of the builder are reported only if the file was parsed successfully,
+ * so the result is the same as with {@link BuildVisitor#visitStatements}.
+ */
+public class StatementBuilder implements ParseTreeListener {
+  private final ModuleLocation myModule;
+  private final ErrorReporter myErrorReporter;
+  private final CountingErrorReporter mySyntaxErrorReporter;
+  private ListErrorReporter myBuildErrors;
+  private BuildVisitor myVisitor;
+  private FileGroup myGroup;
+
+  /**
+   * @param errorReporter       a reporter for errors of the builder.
+   * @param syntaxErrorReporter the reporter that counts syntax errors of the file.
+   */
+  public StatementBuilder(ModuleLocation module, ErrorReporter errorReporter, CountingErrorReporter syntaxErrorReporter) {
+    myModule = module;
+    myErrorReporter = errorReporter;
+    mySyntaxErrorReporter = syntaxErrorReporter;
+    reset();
+  }
+
+  /**
+   * Discards statements built so far.
+   * It is invoked when the file is parsed again.
+   */
+  public void reset() {
+    myBuildErrors = new ListErrorReporter();
+    myVisitor = new BuildVisitor(myModule, myBuildErrors);
+    myGroup = myVisitor.makeFileGroup();
+  }
+
+  /**
+   * @return the group of the file or null if the file has syntax errors.
+   */
+  public @Nullable FileGroup getGroup() {
+    if (mySyntaxErrorReporter.getErrorsNumber() > 0) {
+      return null;
+    }
+    myBuildErrors.reportTo(myErrorReporter);
+    myBuildErrors = new ListErrorReporter();
+    return myGroup;
+  }
+
+  @Override
+  public void exitEveryRule(@NotNull ParserRuleContext ctx) {
+    if (ctx instanceof ArendParser.StatementContext && ctx.getParent() instanceof ArendParser.StatementsContext) {
+      // The exception is set if the parser bails out of the statement
+      if (ctx.exception == null && mySyntaxErrorReporter.getErrorsNumber() == 0) {
+        myVisitor.visitTopLevelStatement((ArendParser.StatementContext) ctx, myGroup);
+      }
+      ((ParserRuleContext) ctx.getParent()).removeLastChild();
+    }
+  }
+
+  @Override
+  public void enterEveryRule(ParserRuleContext ctx) {}
+
+  @Override
+  public void visitTerminal(TerminalNode node) {}
+
+  @Override
+  public void visitErrorNode(ErrorNode node) {}
+}
@@ -0,0 +1,121 @@
+package org.arend.frontend.parser;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parses files with a lexer and a parser that are reused by each thread.
+ * By default, a file is first parsed in the SLL prediction mode that is much faster and fails only on a few inputs.
+ * If it fails, the file is parsed again in the full LL mode, so errors are reported exactly as before.
+ * The concrete group can be built during parsing by a {@link StatementBuilder}.
+ */
+public class StatementsParser {
+  private static volatile boolean TWO_STAGE = true;
+  private static volatile boolean STREAMING = true;
+
+  private static final ThreadLocal<StatementsParser> INSTANCE = ThreadLocal.withInitial(StatementsParser::new);
+
+  private final ArendLexer myLexer = new ArendLexer(CharStreams.fromString(""));
+  private final ArendParser myParser = new ArendParser(new CommonTokenStream(myLexer));
+  private int myFallbacks;
+
+  private StatementsParser() {
+    myLexer.removeErrorListeners();
+    myParser.removeErrorListeners();
+  }
+
+  /**
+   * Enables or disables the SLL stage of parsing.
+   */
+  public static void setTwoStage(boolean twoStage) {
+    TWO_STAGE = twoStage;
+  }
+
+  public static boolean isTwoStage() {
+    return TWO_STAGE;
+  }
+
+  /**
+   * Enables or disables building of groups during parsing.
+   * If it is disabled, the whole parse tree is built before the group.
+   */
+  public static void setStreaming(boolean streaming) {
+    STREAMING = streaming;
+  }
+
+  public static boolean isStreaming() {
+    return STREAMING;
+  }
+
+  /**
+   * @return the number of files parsed by the current thread that required the full LL mode.
+   */
+  public static int getFallbacks() {
+    return INSTANCE.get().myFallbacks;
+  }
+
+  /**
+   * Parses statements of a file.
+   *
+   * @param input         the content of the file.
+   * @param errorListener a listener for lexer and parser errors.
+   * @return the parse tree of the file.
+   */
+  public static @NotNull ArendParser.StatementsContext parse(@NotNull CharStream input, @NotNull ANTLRErrorListener errorListener) {
+    return INSTANCE.get().parseStatements(input, errorListener, TWO_STAGE, null);
+  }
+
+  public static @NotNull ArendParser.StatementsContext parse(@NotNull CharStream input, @NotNull ANTLRErrorListener errorListener, boolean twoStage) {
+    return INSTANCE.get().parseStatements(input, errorListener, twoStage, null);
+  }
+
+  /**
+   * Parses statements of a file and builds them with a given builder.
+   * Parse trees of statements are discarded, so the returned tree does not contain them.
+   */
+  public static @NotNull ArendParser.StatementsContext parse(@NotNull CharStream input, @NotNull ANTLRErrorListener errorListener, @NotNull StatementBuilder builder) {
+    return INSTANCE.get().parseStatements(input, errorListener, TWO_STAGE, builder);
+  }
+
+  private ArendParser.StatementsContext parseStatements(CharStream input, ANTLRErrorListener errorListener, boolean twoStage, @Nullable StatementBuilder builder) {
+    myLexer.setInputStream(input);
+    myLexer.addErrorListener(errorListener);
+    CommonTokenStream tokens = new CommonTokenStream(myLexer);
+    myParser.setTokenStream(tokens);
+    if (builder != null) {
+      myParser.addParseListener(builder);
+    }
+
+    try {
+      if (twoStage) {
+        myParser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        myParser.setErrorHandler(new BailErrorStrategy());
+        try {
+          return myParser.statements();
+        } catch (ParseCancellationException e) {
+          myFallbacks++;
+          tokens.seek(0);
+          myParser.reset();
+          if (builder != null) {
+            builder.reset();
+          }
+        }
+      }
+
+      myParser.getInterpreter().setPredictionMode(PredictionMode.LL);
+      myParser.setErrorHandler(new DefaultErrorStrategy());
+      myParser.addErrorListener(errorListener);
+      return myParser.statements();
+    } finally {
+      // Release the input so that it is not retained by the thread
+      myLexer.removeErrorListeners();
+      myParser.removeErrorListeners();
+      myParser.removeParseListeners();
+      myLexer.setInputStream(CharStreams.fromString(""));
+      myParser.setTokenStream(new CommonTokenStream(myLexer));
+    }
+  }
+}
@@ -11,11 +11,15 @@ import org.arend.term.concrete.Concrete;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
+
 public class ConcreteLocatedReferable extends LocatedReferableImpl implements SourceInfo, DataContainer, TypedReferable {
   private final Position myPosition;
   private final String myAliasName;
   private final Precedence myAliasPrecedence;
   private Concrete.ReferableDefinition myDefinition;
+  private TCDefReferable myReleasedTypecheckable;
+  private ClassReferable myReleasedTypeClassReference;
 
   public ConcreteLocatedReferable(Position position, @NotNull String name, Precedence precedence, @Nullable String aliasName, Precedence aliasPrecedence, TCReferable parent, Kind kind) {
     super(precedence, name, parent, kind);
@@ -53,9 +57,74 @@ public class ConcreteLocatedReferable extends LocatedReferableImpl implements So
 
   @Override
   public @NotNull TCDefReferable getTypecheckable() {
+    if (myReleasedTypecheckable != null) {
+      return myReleasedTypecheckable;
+    }
     return myDefinition == null ? this : myDefinition.getRelatedDefinition().getData();
   }
 
+  /**
+   * Drops the concrete definition of a typechecked referable.
+   * Information about the definition that may be required for name resolution of other modules is kept.
+   * Definitions of classes and fields, and definitions that may refer to a class in their bodies are not released.
+   *
+   * @return true if the definition was released, false otherwise.
+   */
+  public boolean releaseDefinition() {
+    if (myDefinition == null || myDefinition instanceof Concrete.ClassDefinition || myDefinition instanceof Concrete.ClassField) {
+      return false;
+    }
+
+    TCDefReferable typecheckable = getTypecheckable();
+    if (!typecheckable.isTypechecked()) {
+      return false;
+    }
+
+    if (mayHaveBodyReference()) {
+      return false;
+    }
+
+    myReleasedTypeClassReference = getTypeClassReference();
+    myReleasedTypecheckable = typecheckable;
+    myDefinition = null;
+    return true;
+  }
+
+  /**
+   * Checks if {@link #getBodyReference} may return a non-null value for some number of arguments.
+   * This is the case if the head of the body (after lambdas, class extensions, and applications) is a reference.
+   */
+  private boolean mayHaveBodyReference() {
+    if (!(myDefinition instanceof Concrete.FunctionDefinition)) {
+      return false;
+    }
+    Concrete.FunctionBody body = ((Concrete.FunctionDefinition) myDefinition).getBody();
+    if (!(body instanceof Concrete.TermFunctionBody)) {
+      return false;
+    }
+
+    Concrete.Expression expr = body.getTerm();
+    while (true) {
+      if (expr instanceof Concrete.LamExpression) {
+        expr = ((Concrete.LamExpression) expr).getBody();
+      } else if (expr instanceof Concrete.ClassExtExpression) {
+        expr = ((Concrete.ClassExtExpression) expr).getBaseClassExpression();
+      } else if (expr instanceof Concrete.AppExpression) {
+        expr = ((Concrete.AppExpression) expr).getFunction();
+      } else if (expr instanceof Concrete.BinOpSequenceExpression && ((Concrete.BinOpSequenceExpression) expr).getClauses() == null) {
+        List<Concrete.BinOpSequenceElem> sequence = ((Concrete.BinOpSequenceExpression) expr).getSequence();
+        for (Concrete.BinOpSequenceElem elem : sequence) {
+          if (elem.isInfixReference() || elem.isPostfixReference()) {
+            return true;
+          }
+        }
+        expr = sequence.get(0).expression;
+      } else {
+        return expr instanceof Concrete.ReferenceExpression;
+      }
+    }
+  }
+
   public void setDefinition(Concrete.ReferableDefinition definition) {
     assert myDefinition == null;
     myDefinition = definition;
@@ -74,6 +143,9 @@ public class ConcreteLocatedReferable extends LocatedReferableImpl implements So
   @Nullable
   @Override
   public ClassReferable getTypeClassReference() {
+    if (myReleasedTypecheckable != null) {
+      return myReleasedTypeClassReference;
+    }
     return myDefinition == null ? null : myDefinition.accept(new TypeClassReferenceExtractVisitor(), null);
   }
 
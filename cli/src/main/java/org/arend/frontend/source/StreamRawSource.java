@@ -21,6 +21,9 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents a source that loads a raw module from an {@link InputStream}.
@@ -29,6 +32,7 @@ public abstract class StreamRawSource implements Source {
   private final ModulePath myModulePath;
   private final boolean myInTests;
   private FileGroup myGroup;
+  private final List<ModulePath> myImportedModules = new ArrayList<>();
   private byte myPass = 0;
 
   protected StreamRawSource(ModulePath modulePath, boolean inTests) {
@@ -59,30 +63,33 @@ public abstract class StreamRawSource implements Source {
 
     try {
       var errorListener = new ReporterErrorListener(countingErrorReporter, modulePath);
-
-      ArendLexer lexer = new ArendLexer(CharStreams.fromStream(getInputStream()));
-      lexer.removeErrorListeners();
-      lexer.addErrorListener(errorListener);
-
-      ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
-      parser.removeErrorListeners();
-      parser.addErrorListener(errorListener);
-
-      ArendParser.StatementsContext tree = parser.statements();
-      if (countingErrorReporter.getErrorsNumber() > 0) {
-        return false;
+      ModuleLocation moduleLocation = new ModuleLocation(library, myInTests ? ModuleLocation.LocationKind.TEST : ModuleLocation.LocationKind.SOURCE, modulePath);
+      if (StatementsParser.isStreaming()) {
+        StatementBuilder builder = new StatementBuilder(moduleLocation, errorReporter, countingErrorReporter);
+        StatementsParser.parse(CharStreams.fromStream(getInputStream()), errorListener, builder);
+        myGroup = builder.getGroup();
+        if (myGroup == null) {
+          return false;
+        }
+      } else {
+        ArendParser.StatementsContext tree = StatementsParser.parse(CharStreams.fromStream(getInputStream()), errorListener);
+        if (countingErrorReporter.getErrorsNumber() > 0) {
+          return false;
+        }
+        myGroup = new BuildVisitor(moduleLocation, errorReporter).visitStatements(tree);
       }
-
-      myGroup = new BuildVisitor(new ModuleLocation(library, myInTests ? ModuleLocation.LocationKind.TEST : ModuleLocation.LocationKind.SOURCE, modulePath), errorReporter).visitStatements(tree);
       library.groupLoaded(modulePath, myGroup, true, myInTests);
 
       for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
         if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
           ModulePath module = new ModulePath(command.getPath());
-          if (library.containsModule(module) && !sourceLoader.preloadRaw(module, myInTests)) {
-            library.groupLoaded(modulePath, null, true, myInTests);
-            myGroup = null;
-            return false;
+          if (library.containsModule(module)) {
+            if (!sourceLoader.preloadRaw(module, myInTests)) {
+              library.groupLoaded(modulePath, null, true, myInTests);
+              myGroup = null;
+              return false;
+            }
+            myImportedModules.add(module);
           }
         }
       }
@@ -95,6 +102,11 @@ public abstract class StreamRawSource implements Source {
     }
   }
 
+  @Override
+  public @NotNull Collection<? extends ModulePath> getImportedModules() {
+    return myImportedModules;
+  }
+
   @Override
   public LoadResult load(SourceLoader sourceLoader) {
     if (myGroup == null) {
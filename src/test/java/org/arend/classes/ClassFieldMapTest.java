@@ -0,0 +1,97 @@
+package org.arend.classes;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.ClassFieldMap;
+import org.arend.ext.reference.Precedence;
+import org.arend.naming.reference.FieldReferableImpl;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ClassFieldMapTest extends TypeCheckingTestCase {
+  @Test
+  public void fieldIndices() {
+    typeCheckModule(
+      "\\record R (x y : Nat)\n" +
+      "\\record S \\extends R | z : Nat");
+    ClassDefinition classR = (ClassDefinition) getDefinition("R");
+    ClassDefinition classS = (ClassDefinition) getDefinition("S");
+    ClassField x = (ClassField) getDefinition("R.x");
+    ClassField z = (ClassField) getDefinition("S.z");
+    assertEquals(new ArrayList<>(classS.getFields()), Arrays.asList(classS.getFieldArray()));
+    assertEquals(classR.getFieldIndex(x), classS.getFieldIndex(x));
+    assertEquals(2, classS.getFieldIndex(z));
+    assertEquals(-1, classR.getFieldIndex(z));
+  }
+
+  @Test
+  public void iterationOrder() {
+    typeCheckModule(
+      "\\record R (x y : Nat)\n" +
+      "\\record S \\extends R | z : Nat");
+    ClassDefinition classR = (ClassDefinition) getDefinition("R");
+    ClassField x = (ClassField) getDefinition("R.x");
+    ClassField y = (ClassField) getDefinition("R.y");
+    ClassField z = (ClassField) getDefinition("S.z");
+
+    ClassFieldMap<Integer> map = new ClassFieldMap<>(classR);
+    map.put(z, 2);
+    map.put(y, 1);
+    map.put(x, 0);
+    assertEquals(3, map.size());
+    assertEquals(Arrays.asList(x, y, z), new ArrayList<>(map.keySet()));
+    assertEquals(Integer.valueOf(2), map.get(z));
+
+    Iterator<Map.Entry<ClassField, Integer>> iterator = map.entrySet().iterator();
+    iterator.next();
+    iterator.remove();
+    assertFalse(map.containsKey(x));
+    assertEquals(Arrays.asList(y, z), new ArrayList<>(map.keySet()));
+    assertEquals(Integer.valueOf(1), map.remove(y));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void setValueOfRemovedEntry() {
+    typeCheckModule("\\record R (x y : Nat)");
+    ClassDefinition classR = (ClassDefinition) getDefinition("R");
+    ClassField x = (ClassField) getDefinition("R.x");
+
+    ClassFieldMap<Integer> map = new ClassFieldMap<>(classR);
+    map.put(x, 0);
+    Map.Entry<ClassField, Integer> entry = map.entrySet().iterator().next();
+    map.remove(x);
+    assertEquals(0, map.size());
+    assertNull(entry.setValue(1));
+    assertEquals(1, map.size());
+    assertEquals(Integer.valueOf(1), map.get(x));
+  }
+
+  @Test
+  public void fieldAddedLater() {
+    typeCheckModule("\\record R (x y : Nat)");
+    ClassDefinition classR = (ClassDefinition) getDefinition("R");
+    ClassField x = (ClassField) getDefinition("R.x");
+    ClassField w = new ClassField(new FieldReferableImpl(Precedence.DEFAULT, "w", true, false, classR.getReferable()), classR);
+
+    ClassFieldMap<Integer> map = new ClassFieldMap<>(classR);
+    map.put(w, 2);
+    classR.addField(w);
+    assertEquals(2, classR.getFieldIndex(w));
+    assertTrue(map.containsKey(w));
+    assertEquals(Integer.valueOf(2), map.get(w));
+    map.put(w, 3);
+    map.put(x, 0);
+    assertEquals(2, map.size());
+    assertEquals(Arrays.asList(x, w), new ArrayList<>(map.keySet()));
+    assertEquals(Integer.valueOf(3), map.remove(w));
+    assertEquals(1, map.size());
+  }
+}
@@ -0,0 +1,56 @@
+package org.arend.classes;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.ext.reference.Precedence;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.LocatedReferableImpl;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SubClassTest {
+  private static ClassDefinition makeClass(String name, ClassDefinition... superClasses) {
+    ClassDefinition classDef = new ClassDefinition(new LocatedReferableImpl(Precedence.DEFAULT, name, (LocatedReferable) null, GlobalReferable.Kind.CLASS));
+    for (ClassDefinition superClass : superClasses) {
+      classDef.addSuperClass(superClass);
+    }
+    return classDef;
+  }
+
+  @Test
+  public void transitiveTest() {
+    ClassDefinition classA = makeClass("A");
+    ClassDefinition classB = makeClass("B", classA);
+    ClassDefinition classC = makeClass("C");
+    ClassDefinition classD = makeClass("D", classB, classC);
+    assertTrue(classD.isSubClassOf(classA));
+    assertTrue(classD.isSubClassOf(classC));
+    assertTrue(classD.isSubClassOf(classD));
+    assertFalse(classB.isSubClassOf(classC));
+    assertFalse(classA.isSubClassOf(classD));
+  }
+
+  @Test
+  public void superClassClearedTest() {
+    ClassDefinition classA = makeClass("A");
+    ClassDefinition classB = makeClass("B", classA);
+    ClassDefinition classC = makeClass("C", classB);
+    assertTrue(classC.isSubClassOf(classA));
+
+    classB.clear();
+    assertFalse(classC.isSubClassOf(classA));
+    assertTrue(classC.isSubClassOf(classB));
+  }
+
+  @Test
+  public void superClassAddedTest() {
+    ClassDefinition classA = makeClass("A");
+    ClassDefinition classB = makeClass("B");
+    ClassDefinition classC = makeClass("C", classB);
+    assertFalse(classC.isSubClassOf(classA));
+
+    classB.addSuperClass(classA);
+    assertTrue(classC.isSubClassOf(classA));
+  }
+}
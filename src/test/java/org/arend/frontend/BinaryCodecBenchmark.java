@@ -0,0 +1,83 @@
+package org.arend.frontend;
+
+import com.google.protobuf.CodedInputStream;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.source.BinaryCodec;
+import org.arend.util.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares binary codecs on binaries of a library.
+ * For every codec, it reports the total size of encoded modules and the time required to decode and parse them.
+ *
+ * Usage: {@code BinaryCodecBenchmark <binaries dir> [iterations]}
+ */
+public class BinaryCodecBenchmark {
+  private static final BinaryCodec[] CODECS = { BinaryCodec.NONE, BinaryCodec.GZIP, BinaryCodec.DEFLATE_FAST, BinaryCodec.deflate(6), BinaryCodec.deflate(9) };
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: BinaryCodecBenchmark <binaries dir> [iterations]");
+      return;
+    }
+    int iterations = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+
+    List<Path> files;
+    try (Stream<Path> stream = Files.walk(Paths.get(args[0]))) {
+      files = stream.filter(file -> file.getFileName().toString().endsWith(FileUtils.SERIALIZED_EXTENSION)).collect(Collectors.toList());
+    }
+    List<byte[]> modules = new ArrayList<>(files.size());
+    for (Path file : files) {
+      try (InputStream stream = BinaryCodec.decode(Files.newInputStream(file))) {
+        modules.add(stream.readAllBytes());
+      }
+    }
+    System.out.println("Modules: " + modules.size());
+
+    for (BinaryCodec codec : CODECS) {
+      List<byte[]> encoded = new ArrayList<>(modules.size());
+      long size = 0;
+      long time = System.nanoTime();
+      for (byte[] module : modules) {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try (OutputStream stream = codec.encode(byteStream)) {
+          stream.write(module);
+        }
+        byte[] bytes = byteStream.toByteArray();
+        encoded.add(bytes);
+        size += bytes.length;
+      }
+      long encodeTime = System.nanoTime() - time;
+
+      // The first iteration is a warm-up
+      long decodeTime = 0;
+      for (int i = 0; i <= iterations; i++) {
+        time = System.nanoTime();
+        for (byte[] bytes : encoded) {
+          try (InputStream stream = BinaryCodec.decode(new ByteArrayInputStream(bytes))) {
+            CodedInputStream codedInputStream = CodedInputStream.newInstance(stream);
+            codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+            ModuleProtos.Module.parseFrom(codedInputStream);
+          }
+        }
+        if (i > 0) {
+          decodeTime += System.nanoTime() - time;
+        }
+      }
+
+      System.out.printf("%-10s size: %10d bytes, encoding: %6d ms, loading: %6d ms%n", codec, size, encodeTime / 1000000, decodeTime / iterations / 1000000);
+    }
+  }
+}
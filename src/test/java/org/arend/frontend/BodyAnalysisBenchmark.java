@@ -0,0 +1,90 @@
+package org.arend.frontend;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.context.param.EmptyDependentLink;
+import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.context.param.TypedDependentLink;
+import org.arend.core.definition.UniverseKind;
+import org.arend.core.expr.*;
+import org.arend.core.expr.visitor.AnalysisVisitor;
+import org.arend.core.expr.visitor.ExpressionAnalysis;
+import org.arend.core.expr.visitor.GoodThisParametersAnalysis;
+import org.arend.core.expr.visitor.GoodThisParametersVisitor;
+import org.arend.core.sort.Sort;
+import org.arend.typechecking.covariance.UniverseKindAnalysis;
+import org.arend.typechecking.covariance.UniverseKindChecker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.arend.core.expr.ExpressionFactory.singleParams;
+
+/**
+ * Compares separate traversals of a function body by the analyses that run after it is typechecked with a single fused traversal.
+ * Bodies are generated so that neither analysis can stop early, that is, every node is visited in both modes.
+ *
+ * Usage: {@code BodyAnalysisBenchmark [depth] [iterations]}
+ */
+public class BodyAnalysisBenchmark {
+  private static final int NUMBER_OF_PARAMETERS = 4;
+
+  public static void main(String[] args) {
+    int depth = args.length >= 1 ? Integer.parseInt(args[0]) : 18;
+    int iterations = args.length >= 2 ? Integer.parseInt(args[1]) : 20;
+
+    DependentLink parameters = EmptyDependentLink.getInstance();
+    for (int i = NUMBER_OF_PARAMETERS - 1; i >= 0; i--) {
+      parameters = new TypedDependentLink(true, "x" + i, new UniverseExpression(Sort.SET0), parameters);
+    }
+    SingleDependentLink lamParams = singleParams(true, Arrays.asList("y", "z"), new UniverseExpression(Sort.SET0));
+    Expression body = new LamExpression(Sort.SET0, lamParams, generate(depth, Arrays.asList(lamParams, lamParams.getNext())));
+    System.out.println("Depth: " + depth);
+
+    List<Boolean> goodParameters = Collections.emptyList();
+    for (boolean fused : new boolean[] { false, true }) {
+      // The first iteration is a warm-up
+      long analysisTime = 0;
+      List<Boolean> goodResult = null;
+      UniverseKind kindResult = null;
+      for (int i = 0; i <= iterations; i++) {
+        long time = System.nanoTime();
+        if (fused) {
+          GoodThisParametersAnalysis goodThisAnalysis = new GoodThisParametersAnalysis(goodParameters, parameters);
+          UniverseKindAnalysis universeKindAnalysis = new UniverseKindAnalysis();
+          List<ExpressionAnalysis> analyses = Arrays.asList(goodThisAnalysis, universeKindAnalysis);
+          new AnalysisVisitor(analyses).analyzeBody(body);
+          goodResult = goodThisAnalysis.getGoodParameters();
+          kindResult = universeKindAnalysis.getUniverseKind();
+        } else {
+          GoodThisParametersVisitor visitor = new GoodThisParametersVisitor(goodParameters, parameters);
+          visitor.visitBody(body, null);
+          goodResult = visitor.getGoodParameters();
+          kindResult = new UniverseKindChecker().getUniverseKind(body);
+        }
+        if (i > 0) {
+          analysisTime += System.nanoTime() - time;
+        }
+      }
+
+      System.out.printf("%-8s analysis: %6d ms, good parameters: %s, universe kind: %s%n", fused ? "fused" : "separate", analysisTime / iterations / 1000000, goodResult, kindResult);
+    }
+  }
+
+  private static Expression generate(int depth, List<? extends Binding> bindings) {
+    if (depth == 0) {
+      return new ReferenceExpression(bindings.get(bindings.size() - 1));
+    }
+    if (depth % 4 == 0) {
+      SingleDependentLink param = singleParams(true, Collections.singletonList("w" + depth), new UniverseExpression(Sort.SET0));
+      List<Binding> newBindings = new ArrayList<>(bindings);
+      newBindings.add(param);
+      return new LamExpression(Sort.SET0, param, generate(depth - 1, newBindings));
+    }
+    Expression left = generate(depth - 1, bindings);
+    Expression right = depth == 1 ? new UniverseExpression(Sort.SET0) : generate(depth - 1, bindings);
+    return AppExpression.make(AppExpression.make(new ReferenceExpression(bindings.get(depth % bindings.size())), left, true), right, true);
+  }
+}
@@ -0,0 +1,66 @@
+package org.arend.frontend;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.arend.frontend.parser.StatementsParser;
+import org.arend.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares the full LL parsing with the two-stage SLL/LL parsing on sources of a library.
+ * For every mode, it reports the time required to parse all files and the number of files that required the LL stage.
+ *
+ * Usage: {@code ParsingBenchmark <sources dir> [iterations]}
+ */
+public class ParsingBenchmark {
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: ParsingBenchmark <sources dir> [iterations]");
+      return;
+    }
+    int iterations = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+
+    List<Path> files;
+    try (Stream<Path> stream = Files.walk(Paths.get(args[0]))) {
+      files = stream.filter(file -> file.getFileName().toString().endsWith(FileUtils.EXTENSION)).collect(Collectors.toList());
+    }
+    List<String> sources = new ArrayList<>(files.size());
+    long size = 0;
+    for (Path file : files) {
+      String source = Files.readString(file, StandardCharsets.UTF_8);
+      sources.add(source);
+      size += source.length();
+    }
+    System.out.println("Files: " + sources.size() + ", characters: " + size);
+
+    BaseErrorListener errorListener = new BaseErrorListener();
+    for (boolean twoStage : new boolean[] { false, true }) {
+      // The first iteration is a warm-up
+      long parseTime = 0;
+      int fallbacks = 0;
+      for (int i = 0; i <= iterations; i++) {
+        int fallbacksBefore = StatementsParser.getFallbacks();
+        long time = System.nanoTime();
+        for (String source : sources) {
+          StatementsParser.parse(CharStreams.fromString(source), errorListener, twoStage);
+        }
+        if (i > 0) {
+          parseTime += System.nanoTime() - time;
+        } else {
+          fallbacks = StatementsParser.getFallbacks() - fallbacksBefore;
+        }
+      }
+
+      System.out.printf("%-10s parsing: %6d ms, LL fallbacks: %d%n", twoStage ? "SLL/LL" : "LL", parseTime / iterations / 1000000, fallbacks);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package org.arend.library;
+
+import org.arend.error.DummyErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.source.BinaryBundle;
+import org.arend.source.BinarySource;
+import org.arend.source.CodecStreamBinarySource;
+import org.arend.source.PersistableBinarySource;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BinaryBundleTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ModulePath moduleA = new ModulePath("A");
+  private final ModulePath moduleB = new ModulePath("B", "C");
+  private Path binaries;
+  private FileSourceLibrary library;
+
+  @Before
+  public void initialize() throws IOException {
+    binaries = folder.newFolder("bin").toPath();
+    for (ModulePath modulePath : Arrays.asList(moduleA, moduleB)) {
+      Path file = FileUtils.binaryFile(binaries, modulePath);
+      Files.createDirectories(file.getParent());
+      Files.write(file, modulePath.toString().getBytes());
+    }
+    LibraryHeader header = new LibraryHeader(Arrays.asList(moduleA, moduleB), Collections.emptyList(), null, null, null);
+    library = new FileSourceLibrary("test", null, binaries, header, DummyDependencyListener.INSTANCE);
+  }
+
+  private static boolean isFromBundle(BinarySource source) {
+    return source != null && !(source instanceof CodecStreamBinarySource);
+  }
+
+  @Test
+  public void writeTest() throws IOException {
+    assertTrue(library.writeBinaryBundle(DummyErrorReporter.INSTANCE, true));
+    BinaryBundle bundle = BinaryBundle.open(binaries.resolve(FileUtils.BINARY_BUNDLE_FILE));
+    assertNotNull(bundle);
+    assertEquals(new HashSet<>(Arrays.asList(moduleA, moduleB)), bundle.getModules());
+    assertTrue(isFromBundle(library.getBinarySource(moduleA)));
+    assertTrue(isFromBundle(library.getBinarySource(moduleB)));
+  }
+
+  @Test
+  public void deletedBinaryTest() throws IOException {
+    assertTrue(library.writeBinaryBundle(DummyErrorReporter.INSTANCE, true));
+    Files.delete(FileUtils.binaryFile(binaries, moduleB));
+    assertTrue(isFromBundle(library.getBinarySource(moduleA)));
+    BinarySource source = library.getBinarySource(moduleB);
+    assertFalse(isFromBundle(source));
+    assertFalse(((PersistableBinarySource) source).isAvailable());
+  }
+
+  @Test
+  public void newerBinaryTest() throws IOException {
+    assertTrue(library.writeBinaryBundle(DummyErrorReporter.INSTANCE, true));
+    Path bundleFile = binaries.resolve(FileUtils.BINARY_BUNDLE_FILE);
+    Files.setLastModifiedTime(FileUtils.binaryFile(binaries, moduleA), FileTime.fromMillis(Files.getLastModifiedTime(bundleFile).toMillis() + 10000));
+    assertFalse(isFromBundle(library.getBinarySource(moduleA)));
+    assertTrue(isFromBundle(library.getBinarySource(moduleB)));
+  }
+
+  @Test
+  public void outOfBoundsTest() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(BinaryBundle.MAGIC);
+    output.writeInt(BinaryBundle.VERSION);
+    output.writeInt(1);
+    output.writeUTF("A");
+    output.writeInt(Integer.MAX_VALUE);
+    output.writeInt(Integer.MAX_VALUE);
+    output.writeByte(0);
+    output.writeInt(0);
+    try {
+      new BinaryBundle(ByteBuffer.wrap(bytes.toByteArray()), 0);
+      fail();
+    } catch (IOException e) {
+      assertEquals("Module A is out of bounds", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package org.arend.library;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.ClassCallExpression;
+import org.arend.core.expr.Expression;
+import org.arend.ext.module.ModulePath;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.term.group.ChildGroup;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ExpressionTableTest extends LibraryTestCase {
+  private final ModulePath modulePath = new ModulePath("A");
+  private final Map<String, String> resultTypes = new HashMap<>();
+
+  private void roundTrip(String text, String... names) {
+    library.addModule(modulePath, text);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    assertTrue(library.persistUpdatedModules(errorReporter));
+    assertTrue(errorList.isEmpty());
+
+    ChildGroup group = library.getModuleGroup(modulePath);
+    assertNotNull(group);
+    for (String name : names) {
+      resultTypes.put(name, getFunction(group, name).getResultType().toString());
+    }
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(errorList.isEmpty());
+    for (String name : names) {
+      assertEquals(resultTypes.get(name), getLoadedResultType(name).toString());
+    }
+  }
+
+  private FunctionDefinition getFunction(ChildGroup group, String name) {
+    TCDefReferable ref = getDef(group.getGroupScope(), name);
+    assertNotNull(ref);
+    assertTrue(ref.getTypechecked() instanceof FunctionDefinition);
+    return (FunctionDefinition) ref.getTypechecked();
+  }
+
+  private Expression getLoadedResultType(String name) {
+    ChildGroup group = library.getModuleGroup(modulePath);
+    assertNotNull(group);
+    return getFunction(group, name).getResultType();
+  }
+
+  @Test
+  public void repeatedCallsTest() {
+    roundTrip(
+      "\\func f (n : Nat) => n\n" +
+      "\\func g1 : f 0 = f 0 => idp\n" +
+      "\\func g2 : f 0 = 0 => idp",
+      "g1", "g2");
+  }
+
+  @Test
+  public void nestedClosedCallsTest() {
+    roundTrip(
+      "\\func f (n : Nat) => n\n" +
+      "\\func g1 : f (f 0) = f 0 => idp\n" +
+      "\\func g2 : f (f 0) = 0 => idp",
+      "g1", "g2");
+  }
+
+  @Test
+  public void nestedOpenCallsTest() {
+    roundTrip(
+      "\\func f (n : Nat) => n\n" +
+      "\\func g1 (x : Nat) : f (f x) = x => idp\n" +
+      "\\func g2 (y : Nat) : f (f y) = f (f 0) -> Nat => \\lam _ => y",
+      "g1", "g2");
+  }
+
+  @Test
+  public void openCallWithClosedArgumentTest() {
+    roundTrip(
+      "\\func f (n m : Nat) => n\n" +
+      "\\func g1 (x : Nat) : f (f 0 0) x = f 0 x => idp\n" +
+      "\\func g2 (y : Nat) : f y (f 0 0) = y => idp",
+      "g1", "g2");
+  }
+
+  @Test
+  public void classCallsTest() {
+    roundTrip(
+      "\\func f (n : Nat) => n\n" +
+      "\\record C (a b : Nat)\n" +
+      "\\func g1 : C { | a => f 0 } => \\cowith | b => 1\n" +
+      "\\func g2 : C { | a => f 0 } => \\cowith | b => 2",
+      "g1", "g2");
+
+    Expression type1 = getLoadedResultType("g1");
+    Expression type2 = getLoadedResultType("g2");
+    assertTrue(type1 instanceof ClassCallExpression);
+    assertTrue(type2 instanceof ClassCallExpression);
+    assertNotSame(type1, type2);
+  }
+}
@@ -0,0 +1,151 @@
+package org.arend.library;
+
+import org.arend.ArendTestCase;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.Body;
+import org.arend.core.elimtree.ElimBody;
+import org.arend.core.elimtree.ElimClause;
+import org.arend.core.pattern.Pattern;
+import org.arend.ext.module.ModulePath;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class LazyBodyTest extends ArendTestCase {
+  private final ModulePath modulePath = new ModulePath("A");
+  private final DependencyCollector dependencyCollector = new DependencyCollector();
+  private final MemoryLibrary library = new MemoryLibrary() {
+    @Override
+    public DependencyListener getDependencyListener() {
+      return dependencyCollector;
+    }
+  };
+  private final Map<String, String> bodies = new HashMap<>();
+
+  @Before
+  public void initialize() {
+    setModuleScopeProvider(library.getModuleScopeProvider());
+  }
+
+  private void roundTrip(String text, String... names) {
+    library.addModule(modulePath, text);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    assertTrue(library.persistUpdatedModules(errorReporter));
+    assertTrue(errorList.isEmpty());
+    for (String name : names) {
+      bodies.put(name, bodyToString(getFunction(name).getReallyActualBody()));
+    }
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(errorList.isEmpty());
+    for (String name : names) {
+      assertFalse(getFunction(name).isBodyLoaded());
+    }
+  }
+
+  private FunctionDefinition getFunction(String name) {
+    ChildGroup group = library.getModuleGroup(modulePath);
+    assertNotNull(group);
+    TCDefReferable ref = getDef(group.getGroupScope(), name);
+    assertNotNull(ref);
+    assertTrue(ref.getTypechecked() instanceof FunctionDefinition);
+    return (FunctionDefinition) ref.getTypechecked();
+  }
+
+  private static String bodyToString(Body body) {
+    if (!(body instanceof ElimBody)) {
+      return String.valueOf(body);
+    }
+    StringBuilder builder = new StringBuilder();
+    for (ElimClause<Pattern> clause : ((ElimBody) body).getClauses()) {
+      builder.append(clause.getExpression()).append('\n');
+    }
+    return builder.toString();
+  }
+
+  private Set<String> getDependencies(String name) {
+    Set<String> result = new HashSet<>();
+    for (TCReferable dependency : dependencyCollector.getDependencies(getFunction(name).getReferable())) {
+      result.add(dependency.textRepresentation());
+    }
+    return result;
+  }
+
+  @Test
+  public void forceBodyTest() {
+    roundTrip(
+      "\\func f (n : Nat) : Nat \\elim n | 0 => 0 | suc n => suc (f n)\n" +
+      "\\func g (n : Nat) => f (f n)",
+      "f", "g");
+
+    FunctionDefinition function = getFunction("g");
+    assertEquals(bodies.get("g"), bodyToString(function.getReallyActualBody()));
+    assertTrue(function.isBodyLoaded());
+    assertSame(function.getReallyActualBody(), function.getReallyActualBody());
+    assertFalse(getFunction("f").isBodyLoaded());
+    assertEquals(bodies.get("f"), bodyToString(getFunction("f").getReallyActualBody()));
+  }
+
+  @Test
+  public void dependenciesTest() {
+    roundTrip(
+      "\\data D | con\n" +
+      "\\record R (x : Nat)\n" +
+      "\\func f => 0\n" +
+      "\\func g : Nat => f\n" +
+      "\\func h : Nat => \\case con \\with { | con => 0 }\n" +
+      "\\func k => R",
+      "f", "g", "h", "k");
+
+    // Dependencies of bodies are reported before the bodies are loaded
+    assertTrue(getDependencies("g").contains("f"));
+    assertTrue(getDependencies("h").contains("D"));
+    assertTrue(getDependencies("k").contains("R"));
+    for (String name : new String[] { "g", "h", "k" }) {
+      assertFalse(getFunction(name).isBodyLoaded());
+    }
+  }
+
+  @Test
+  public void concurrentForceBodyTest() throws Exception {
+    roundTrip(
+      "\\func f (n : Nat) : Nat \\elim n | 0 => 0 | suc n => suc (f n)\n" +
+      "\\func g (n : Nat) => f (f (f n))",
+      "f", "g");
+
+    FunctionDefinition function = getFunction("g");
+    int numberOfThreads = 8;
+    CountDownLatch latch = new CountDownLatch(numberOfThreads);
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+    try {
+      List<Future<Body>> futures = new ArrayList<>();
+      for (int i = 0; i < numberOfThreads; i++) {
+        futures.add(executor.submit(() -> {
+          latch.countDown();
+          latch.await();
+          return function.getReallyActualBody();
+        }));
+      }
+
+      Body body = futures.get(0).get(10, TimeUnit.SECONDS);
+      assertNotNull(body);
+      for (Future<Body> future : futures) {
+        assertSame(body, future.get(10, TimeUnit.SECONDS));
+      }
+      assertEquals(bodies.get("g"), bodyToString(body));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
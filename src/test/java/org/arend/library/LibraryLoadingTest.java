@@ -55,6 +55,19 @@ public class LibraryLoadingTest extends LibraryTestCase {
     assertThat(library.getModuleGroup(moduleB), is(notNullValue()));
   }
 
+  @Test
+  public void resolveModulesConcurrently() {
+    libraryManager.setResolvingThreads(4);
+    library.addModule(new ModulePath("A"), "\\func f => 0");
+    library.addModule(new ModulePath("B"), "\\import A\n\\func g => f");
+    library.addModule(new ModulePath("C"), "\\import A\n\\func h => f");
+    library.addModule(new ModulePath("D"), "\\import B\n\\import C\n\\func k => (g, h)");
+    library.addModule(new ModulePath("E"), "\\func u => 1");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, containsErrors(0));
+    assertThat(library.getModuleGroup(new ModulePath("D")), is(notNullValue()));
+  }
+
   @Test
   public void locateNonExistentModule() {
     Source source = library.getRawSource(new ModulePath("DoesNotExist"));
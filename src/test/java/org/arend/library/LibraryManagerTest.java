@@ -0,0 +1,162 @@
+package org.arend.library;
+
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.error.ListErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.extImpl.DefinitionRequester;
+import org.arend.library.error.LibraryError;
+import org.arend.module.scopeprovider.EmptyModuleScopeProvider;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LibraryManagerTest {
+  private final List<GeneralError> errorList = Collections.synchronizedList(new ArrayList<>());
+  private final ListErrorReporter errorReporter = new ListErrorReporter(errorList);
+  private final Map<String, TestLibrary> libraries = new HashMap<>();
+  private final Set<Thread> loadingThreads = ConcurrentHashMap.newKeySet();
+  private final LibraryManager libraryManager = new LibraryManager((lib, name) -> libraries.get(name), new InstanceProviderSet(), errorReporter, errorReporter, DefinitionRequester.INSTANCE, null);
+
+  private class TestLibrary extends BaseLibrary {
+    private final String myName;
+    private final List<LibraryDependency> myDependencies = new ArrayList<>();
+    private final CountDownLatch myLatch;
+
+    TestLibrary(String name, CountDownLatch latch, String... dependencies) {
+      myName = name;
+      myLatch = latch;
+      for (String dependency : dependencies) {
+        myDependencies.add(new LibraryDependency(dependency));
+      }
+      libraries.put(name, this);
+    }
+
+    @Override
+    public boolean load(LibraryManager libraryManager, TypecheckingOrderingListener typechecking) {
+      loadingThreads.add(Thread.currentThread());
+      if (myLatch != null) {
+        // Libraries sharing the latch are loaded only when all of them have started loading
+        myLatch.countDown();
+        try {
+          if (!myLatch.await(10, TimeUnit.SECONDS)) {
+            return false;
+          }
+        } catch (InterruptedException e) {
+          return false;
+        }
+      }
+
+      Map<String, Library> loadedDependencies = libraryManager.loadDependencies(this, myDependencies, typechecking);
+      for (LibraryDependency dependency : myDependencies) {
+        Library loadedDependency = loadedDependencies.containsKey(dependency.name) ? loadedDependencies.get(dependency.name) : libraryManager.loadDependency(this, dependency.name, typechecking);
+        if (loadedDependency == null) {
+          return false;
+        }
+        libraryManager.registerDependency(this, loadedDependency);
+      }
+      return super.load(libraryManager, typechecking);
+    }
+
+    @Override
+    public @NotNull String getName() {
+      return myName;
+    }
+
+    @Override
+    public @NotNull Collection<? extends ModulePath> getLoadedModules() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public @NotNull Collection<? extends LibraryDependency> getDependencies() {
+      return myDependencies;
+    }
+
+    @Override
+    public @Nullable ChildGroup getModuleGroup(ModulePath modulePath, boolean inTests) {
+      return null;
+    }
+
+    @Override
+    public boolean containsModule(ModulePath modulePath) {
+      return false;
+    }
+
+    @Override
+    public @NotNull ModuleScopeProvider getModuleScopeProvider() {
+      return EmptyModuleScopeProvider.INSTANCE;
+    }
+  }
+
+  private boolean hasCyclicError() {
+    synchronized (errorList) {
+      for (GeneralError error : errorList) {
+        if (error instanceof LibraryError && error.message.equals("Cyclic dependencies in libraries")) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  @Test
+  public void parallelLoadingTest() {
+    CountDownLatch latch = new CountDownLatch(4);
+    TestLibrary top = new TestLibrary("top", null, "A", "B", "C", "D");
+    for (String name : new String[] { "A", "B", "C", "D" }) {
+      new TestLibrary(name, latch, "E");
+    }
+    TestLibrary shared = new TestLibrary("E", null);
+
+    libraryManager.setLoadingThreads(4);
+    assertTrue(libraryManager.loadLibrary(top, null));
+    assertTrue(errorList.isEmpty());
+    // The latch is released only if A, B, C, and D are loaded at the same time
+    assertEquals(0, latch.getCount());
+    assertTrue(loadingThreads.size() >= 4);
+    for (TestLibrary library : libraries.values()) {
+      assertTrue(library.isLoaded());
+      assertTrue(libraryManager.isRegistered(library));
+      assertSame(library, libraryManager.getRegisteredLibrary(library.getName()));
+    }
+
+    libraryManager.unloadLibrary(shared);
+    assertNull(libraryManager.getRegisteredLibrary("E"));
+    assertSame(top, libraryManager.getRegisteredLibrary("top"));
+  }
+
+  @Test
+  public void cycleInOneThreadTest() {
+    TestLibrary libA = new TestLibrary("A", null, "B");
+    new TestLibrary("B", null, "A");
+    assertFalse(libraryManager.loadLibrary(libA, null));
+    assertTrue(hasCyclicError());
+    assertNull(libraryManager.getRegisteredLibrary("A"));
+    assertNull(libraryManager.getRegisteredLibrary("B"));
+  }
+
+  @Test
+  public void cycleBetweenThreadsTest() {
+    CountDownLatch latch = new CountDownLatch(2);
+    TestLibrary top = new TestLibrary("top", null, "B", "C");
+    new TestLibrary("B", latch, "C");
+    new TestLibrary("C", latch, "B");
+
+    libraryManager.setLoadingThreads(2);
+    assertFalse(libraryManager.loadLibrary(top, null));
+    assertEquals(0, latch.getCount());
+    assertTrue(hasCyclicError());
+    assertNull(libraryManager.getRegisteredLibrary("top"));
+  }
+}
@@ -0,0 +1,63 @@
+package org.arend.library;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.BaseCliFrontend;
+import org.arend.frontend.reference.ConcreteLocatedReferable;
+import org.arend.naming.reference.TCDefReferable;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReleaseConcreteTest extends TypeCheckingTestCase {
+  private final MemoryLibrary library = new MemoryLibrary();
+
+  @Before
+  public void initialize() {
+    setModuleScopeProvider(library.getModuleScopeProvider());
+  }
+
+  private ConcreteLocatedReferable getReferable(ChildGroup group, String name) {
+    TCDefReferable ref = getDef(group.getGroupScope(), name);
+    assertTrue(ref instanceof ConcreteLocatedReferable);
+    return (ConcreteLocatedReferable) ref;
+  }
+
+  @Test
+  public void releasedDefinitionsTest() {
+    ModulePath modulePath = new ModulePath("A");
+    library.addModule(modulePath,
+      "\\class C (x : Nat)\n" +
+      "\\func f (n : Nat) => suc n\n" +
+      "\\func CAlias => C\n" +
+      "\\func inst : C \\cowith | x => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    ChildGroup group = library.getModuleGroup(modulePath);
+    assertNotNull(group);
+
+    BackgroundPersister persister = new BackgroundPersister(library);
+    typechecking.typecheckLibrary(library);
+    for (String name : new String[] { "C", "f", "CAlias", "inst" }) {
+      persister.definitionTypechecked(getDef(group.getGroupScope(), name));
+    }
+    assertTrue(persister.finish(errorReporter));
+    assertTrue(errorList.isEmpty());
+
+    BaseCliFrontend.releaseConcrete(persister);
+    assertNull(getReferable(group, "f").getDefinition());
+    assertNull(getReferable(group, "inst").getDefinition());
+    assertNotNull(getReferable(group, "C").getDefinition());
+    assertNotNull(getReferable(group, "CAlias").getDefinition());
+    assertNotNull(getReferable(group, "inst").getTypeClassReference());
+
+    typeCheckModule(
+      "\\import A\n" +
+      "\\func g => f inst.x\n" +
+      "\\func h : Nat => g");
+    resolveNamesModule(
+      "\\import A\n" +
+      "\\func k (c : CAlias) => c.x");
+  }
+}
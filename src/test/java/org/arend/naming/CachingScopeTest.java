@@ -0,0 +1,131 @@
+package org.arend.naming;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.module.scopeprovider.CachingModuleScopeProvider;
+import org.arend.naming.reference.LocalReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.scope.CachingScope;
+import org.arend.naming.scope.Scope;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class CachingScopeTest {
+  private static class CountingScope implements Scope {
+    final List<Referable> elements = new ArrayList<>();
+    final Map<String, Scope> namespaces = new HashMap<>();
+    int findCount;
+    int resolveNameCount;
+    int resolveNamespaceCount;
+
+    CountingScope(String... names) {
+      for (String name : names) {
+        elements.add(new LocalReferable(name));
+      }
+    }
+
+    @Override
+    public @Nullable Referable find(Predicate<Referable> pred) {
+      findCount++;
+      for (Referable referable : elements) {
+        if (pred.test(referable)) {
+          return referable;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public @Nullable Referable resolveName(String name) {
+      resolveNameCount++;
+      for (Referable referable : elements) {
+        if (referable.textRepresentation().equals(name)) {
+          return referable;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public @Nullable Scope resolveNamespace(String name, boolean onlyInternal) {
+      resolveNamespaceCount++;
+      return namespaces.get(name);
+    }
+  }
+
+  @Test
+  public void lazyElementsTest() {
+    CountingScope scope = new CountingScope("x", "y", "x");
+    Scope cachingScope = CachingScope.make(scope);
+    assertEquals(0, scope.findCount);
+
+    assertSame(scope.elements.get(1), cachingScope.resolveName("y"));
+    assertEquals(0, scope.findCount);
+
+    Collection<? extends Referable> elements = cachingScope.getElements();
+    assertEquals(Arrays.asList(scope.elements.get(0), scope.elements.get(1)), new ArrayList<>(elements));
+    assertSame(elements, cachingScope.getElements());
+    assertEquals(1, scope.findCount);
+  }
+
+  @Test
+  public void resolveNameTest() {
+    CountingScope scope = new CountingScope("x", "y");
+    Scope cachingScope = CachingScope.make(scope);
+    assertSame(scope.elements.get(0), cachingScope.resolveName("x"));
+    assertSame(scope.elements.get(0), cachingScope.resolveName("x"));
+    assertEquals(1, scope.resolveNameCount);
+  }
+
+  @Test
+  public void missingNameTest() {
+    CountingScope scope = new CountingScope("x");
+    Scope cachingScope = CachingScope.make(scope);
+    assertNull(cachingScope.resolveName("z"));
+    assertNull(cachingScope.resolveName("z"));
+    assertEquals(1, scope.resolveNameCount);
+    assertNull(cachingScope.resolveName(null));
+  }
+
+  @Test
+  public void namespaceTest() {
+    CountingScope scope = new CountingScope("x");
+    CountingScope namespace = new CountingScope("y");
+    scope.namespaces.put("x", namespace);
+    Scope cachingScope = CachingScope.make(scope);
+
+    Scope cachedNamespace = cachingScope.resolveNamespace("x", false);
+    assertNotNull(cachedNamespace);
+    assertSame(cachedNamespace, cachingScope.resolveNamespace("x", false));
+    assertSame(namespace.elements.get(0), cachedNamespace.resolveName("y"));
+    assertNull(cachingScope.resolveNamespace("z", false));
+    assertNull(cachingScope.resolveNamespace("z", false));
+    assertEquals(2, scope.resolveNamespaceCount);
+  }
+
+  @Test
+  public void moduleScopeProviderTest() {
+    ModulePath modulePath = new ModulePath("A");
+    CountingScope scope = new CountingScope("x");
+    int[] count = new int[1];
+    CachingModuleScopeProvider provider = new CachingModuleScopeProvider(module -> {
+      count[0]++;
+      return module.equals(modulePath) ? scope : null;
+    });
+
+    Scope moduleScope = provider.forModule(modulePath);
+    assertNotNull(moduleScope);
+    assertSame(moduleScope, provider.forModule(modulePath));
+    assertNull(provider.forModule(new ModulePath("B")));
+    assertNull(provider.forModule(new ModulePath("B")));
+    assertEquals(2, count[0]);
+
+    provider.reset(modulePath);
+    assertNotSame(moduleScope, provider.forModule(modulePath));
+    assertEquals(3, count[0]);
+  }
+}
@@ -0,0 +1,153 @@
+package org.arend.naming;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.ext.reference.Precedence;
+import org.arend.module.ModuleLocation;
+import org.arend.naming.reference.*;
+import org.arend.naming.scope.EmptyScope;
+import org.arend.naming.scope.LexicalScope;
+import org.arend.naming.scope.Scope;
+import org.arend.term.NamespaceCommand;
+import org.arend.term.group.ClassGroup;
+import org.arend.term.group.Group;
+import org.arend.term.group.StaticGroup;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LexicalScopeTest {
+  private static final ModuleLocation MODULE = new ModuleLocation(null, false, null, new ModulePath("A"));
+
+  private static class AliasedReferable extends LocatedReferableImpl {
+    private final String myAlias;
+
+    AliasedReferable(String name, String alias) {
+      super(Precedence.DEFAULT, name, MODULE, Kind.FUNCTION);
+      myAlias = alias;
+    }
+
+    @Override
+    public @Nullable String getAliasName() {
+      return myAlias;
+    }
+  }
+
+  /**
+   * A group without a name index; {@link LexicalScope} scans it.
+   */
+  private static class ScannedGroup implements Group {
+    private final Group myGroup;
+
+    ScannedGroup(Group group) {
+      myGroup = group;
+    }
+
+    @Override
+    public @NotNull LocatedReferable getReferable() {
+      return myGroup.getReferable();
+    }
+
+    @Override
+    public @NotNull Collection<? extends Group> getSubgroups() {
+      return myGroup.getSubgroups();
+    }
+
+    @Override
+    public @NotNull Collection<? extends Group> getDynamicSubgroups() {
+      return myGroup.getDynamicSubgroups();
+    }
+
+    @Override
+    public @NotNull Collection<? extends NamespaceCommand> getNamespaceCommands() {
+      return myGroup.getNamespaceCommands();
+    }
+
+    @Override
+    public @NotNull Collection<? extends InternalReferable> getInternalReferables() {
+      return myGroup.getInternalReferables();
+    }
+
+    @Override
+    public @NotNull Collection<? extends InternalReferable> getFields() {
+      return myGroup.getFields();
+    }
+  }
+
+  private static Group makeGroup(String name, String alias) {
+    return new StaticGroup(new AliasedReferable(name, alias), Collections.emptyList(), Collections.emptyList(), null);
+  }
+
+  private static Group makeGroup(String name) {
+    return makeGroup(name, null);
+  }
+
+  private static List<Scope> scopesInside(Group group) {
+    return Arrays.asList(LexicalScope.insideOf(group, EmptyScope.INSTANCE), LexicalScope.insideOf(new ScannedGroup(group), EmptyScope.INSTANCE));
+  }
+
+  private static List<Scope> scopesWith(Group... subgroups) {
+    return scopesInside(new StaticGroup(new LocatedReferableImpl(Precedence.DEFAULT, "M", MODULE, GlobalReferable.Kind.OTHER), Arrays.asList(subgroups), Collections.emptyList(), null));
+  }
+
+  private static void assertAlias(Referable expected, Referable actual) {
+    assertTrue(actual instanceof AliasReferable);
+    assertSame(expected, ((AliasReferable) actual).getUnderlyingReferable());
+  }
+
+  @Test
+  public void nameBeforeAliasTest() {
+    Group groupA = makeGroup("a");
+    Group groupB = makeGroup("b", "a");
+    for (Scope scope : scopesWith(groupA, groupB)) {
+      assertSame(groupA.getReferable(), scope.resolveName("a"));
+      assertSame(groupB.getReferable(), scope.resolveName("b"));
+    }
+  }
+
+  @Test
+  public void aliasTest() {
+    Group group = makeGroup("a", "b");
+    for (Scope scope : scopesWith(group)) {
+      assertSame(group.getReferable(), scope.resolveName("a"));
+      assertAlias(group.getReferable(), scope.resolveName("b"));
+      assertNotNull(scope.resolveNamespace("b", false));
+      assertNull(scope.resolveName("c"));
+    }
+  }
+
+  @Test
+  public void firstSubgroupWinsTest() {
+    Group group1 = makeGroup("a", "b");
+    Group group2 = makeGroup("a");
+    Group group3 = makeGroup("b");
+    for (Scope scope : scopesWith(group1, group2, group3)) {
+      assertSame(group1.getReferable(), scope.resolveName("a"));
+      // The alias of an earlier subgroup hides the name of a later one
+      assertAlias(group1.getReferable(), scope.resolveName("b"));
+    }
+  }
+
+  @Test
+  public void staticBeforeDynamicTest() {
+    Group staticGroup = makeGroup("a");
+    Group dynamicGroup = makeGroup("a");
+    Group otherDynamicGroup = makeGroup("b");
+    ClassReferableImpl classRef = new ClassReferableImpl(Precedence.DEFAULT, "C", false, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), MODULE);
+    ClassGroup classGroup = new ClassGroup(classRef, Collections.emptyList(), Arrays.asList(dynamicGroup, otherDynamicGroup), Collections.singletonList(staticGroup), Collections.emptyList(), null);
+    for (Scope scope : scopesInside(classGroup)) {
+      assertSame(staticGroup.getReferable(), scope.resolveName("a"));
+      assertSame(otherDynamicGroup.getReferable(), scope.resolveName("b"));
+    }
+
+    Group scannedGroup = new ScannedGroup(classGroup);
+    for (Group group : Arrays.asList(classGroup, scannedGroup)) {
+      Scope scope = LexicalScope.insideOf(group, EmptyScope.INSTANCE, LexicalScope.Extent.EXTERNAL_AND_FIELDS);
+      assertSame(staticGroup.getReferable(), scope.resolveName("a"));
+      assertNull(scope.resolveName("b"));
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.ClassCallExpression;
+import org.arend.ext.module.ModulePath;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.doubleChecker.CoreModuleChecker;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CoreCompactionTest extends TypeCheckingTestCase {
+  @Test
+  public void compactModule() {
+    ChildGroup group = typeCheckModule(
+      "\\record R (x y : Nat) | z : x = x\n" +
+      "\\record S \\extends R { \\default y => 0 }\n" +
+      "\\func f : R 1 \\cowith | y => 2 | z => idp\n" +
+      "\\func g (r : R { | x => 3 }) : Nat => r.y");
+    ModulePath module = new ModulePath("Test");
+    CoreCompactor compactor = new CoreCompactor();
+    compactor.compactGroup(module, group);
+
+    Long saved = compactor.getBytesSaved().get(module);
+    assertNotNull(saved);
+    assertTrue(saved > 0);
+    assertTrue(new CoreModuleChecker(errorReporter).checkGroup(group));
+
+    ClassCallExpression classCall = (ClassCallExpression) ((FunctionDefinition) getDefinition("f")).getResultType();
+    assertEquals(1, classCall.getImplementedHere().size());
+  }
+
+  @Test
+  public void modifyCompactedClass() {
+    typeCheckModule(
+      "\\record R (x : Nat) | y : Nat\n" +
+      "\\record S \\extends R { \\default y => x }");
+    ClassDefinition classDef = (ClassDefinition) getDefinition("S");
+    new CoreCompactor().compact(classDef);
+
+    List<ClassField> fields = new ArrayList<>(classDef.getFields());
+    classDef.clear();
+    classDef.addFields(fields);
+    ClassField field = (ClassField) getDefinition("R.y");
+    classDef.removeDefault(field);
+    classDef.addDefaultDependency(field, (ClassField) getDefinition("R.x"));
+    assertEquals(fields, new ArrayList<>(classDef.getFields()));
+    assertNull(classDef.getDefault(field));
+    assertTrue(classDef.getDefaultDependencies().containsKey(field));
+  }
+}
@@ -0,0 +1,180 @@
+package org.arend.typechecking;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.context.binding.inference.ExpressionInferenceVariable;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.InferenceReferenceExpression;
+import org.arend.core.expr.ReferenceExpression;
+import org.arend.core.expr.UniverseExpression;
+import org.arend.core.sort.Sort;
+import org.arend.error.DummyErrorReporter;
+import org.arend.ext.core.ops.CMP;
+import org.arend.ext.userData.Key;
+import org.arend.typechecking.implicitargs.equations.Equation;
+import org.arend.typechecking.implicitargs.equations.Equations;
+import org.arend.typechecking.implicitargs.equations.InferenceVariableListener;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class UndoLogTest {
+  private final CheckTypeVisitor visitor = new CheckTypeVisitor(DummyErrorReporter.INSTANCE, null, null);
+  private final Binding typeBinding = new TypedBinding("A", new UniverseExpression(Sort.SET0));
+  private final Binding elementBinding = new TypedBinding("a", new ReferenceExpression(typeBinding));
+
+  private static final Key<String> STRING_KEY = new Key<>("string");
+  private static final Key<List<String>> LIST_KEY = new Key<>("list") {
+    @Override
+    public List<String> copy(List<String> value) {
+      return new ArrayList<>(value);
+    }
+  };
+
+  private class Variable extends ExpressionInferenceVariable {
+    final List<InferenceVariableListener> listeners = new ArrayList<>();
+    final Expression reference = new InferenceReferenceExpression(this);
+
+    Variable() {
+      super(new ReferenceExpression(typeBinding), null, new HashSet<>(Arrays.asList(typeBinding, elementBinding)), true);
+    }
+
+    @Override
+    public void addListener(InferenceVariableListener listener) {
+      listeners.add(listener);
+      super.addListener(listener);
+    }
+  }
+
+  private void withRollback(Runnable action) {
+    visitor.withCurrentState(tc -> {
+      action.run();
+      tc.loadSavedState();
+      return null;
+    });
+  }
+
+  @Test
+  public void listTest() {
+    UndoLog undoLog = new UndoLog();
+    List<Integer> list = undoLog.newList();
+    list.add(0);
+    list.add(1);
+
+    int mark = undoLog.checkpoint();
+    list.add(2);
+    list.remove(0);
+    list.set(0, 3);
+    assertEquals(Arrays.asList(3, 2), list);
+    undoLog.rollback(mark);
+    assertEquals(Arrays.asList(0, 1), list);
+
+    list.clear();
+    assertTrue(list.isEmpty());
+    undoLog.rollback(mark);
+    assertEquals(Arrays.asList(0, 1), list);
+    undoLog.release();
+
+    list.add(4);
+    undoLog.rollback(0);
+    assertEquals(Arrays.asList(0, 1, 4), list);
+  }
+
+  @Test
+  public void nestedCheckpointsTest() {
+    UndoLog undoLog = new UndoLog();
+    List<Integer> list = undoLog.newList();
+    int outer = undoLog.checkpoint();
+    list.add(0);
+    int inner = undoLog.checkpoint();
+    list.add(1);
+    undoLog.rollback(inner);
+    assertEquals(Collections.singletonList(0), list);
+    list.add(2);
+    undoLog.release();
+    // Mutations made after the inner checkpoint are still covered by the outer one
+    undoLog.rollback(outer);
+    assertTrue(list.isEmpty());
+    undoLog.release();
+  }
+
+  @Test
+  public void equationsTest() {
+    Variable x = new Variable();
+    Variable y = new Variable();
+    Variable z = new Variable();
+    Equations equations = visitor.getEquations();
+    assertTrue(equations.addEquation(x.reference, y.reference, x.getType(), CMP.EQ, null, x, y, false));
+    Equation equation1 = (Equation) x.listeners.get(0);
+
+    Equation[] equation2 = new Equation[1];
+    withRollback(() -> {
+      assertTrue(equations.addEquation(y.reference, z.reference, y.getType(), CMP.EQ, null, y, z, false));
+      equation2[0] = (Equation) z.listeners.get(0);
+      // Solves x, which solves y from the first equation and z from the second one
+      assertTrue(equations.solve(x, new ReferenceExpression(elementBinding)));
+      assertTrue(x.isSolved());
+      assertTrue(y.isSolved());
+      assertTrue(z.isSolved());
+      assertFalse(equations.remove(equation1));
+      assertFalse(equations.remove(equation2[0]));
+    });
+
+    assertFalse(x.isSolved());
+    assertFalse(y.isSolved());
+    assertFalse(z.isSolved());
+    assertTrue(equations.remove(equation1));
+    assertFalse(equations.remove(equation2[0]));
+  }
+
+  @Test
+  public void solvedVariableTest() {
+    Variable x = new Variable();
+    Variable y = new Variable();
+    assertTrue(visitor.getEquations().solve(y, new ReferenceExpression(elementBinding)));
+    withRollback(() -> assertTrue(visitor.getEquations().solve(x, new ReferenceExpression(elementBinding))));
+    assertFalse(x.isSolved());
+    assertTrue(y.isSolved());
+  }
+
+  @Test
+  public void userDataTest() {
+    visitor.putUserData(STRING_KEY, "a");
+    withRollback(() -> {
+      visitor.putUserData(STRING_KEY, "b");
+      visitor.putUserData(STRING_KEY, "c");
+    });
+    assertEquals("a", visitor.getUserData(STRING_KEY));
+
+    withRollback(() -> visitor.putUserData(STRING_KEY, null));
+    assertEquals("a", visitor.getUserData(STRING_KEY));
+
+    withRollback(() -> visitor.putUserData(LIST_KEY, new ArrayList<>()));
+    assertNull(visitor.getUserData(LIST_KEY));
+  }
+
+  @Test
+  public void mutatedUserDataTest() {
+    List<String> list = new ArrayList<>(Collections.singletonList("a"));
+    visitor.putUserData(LIST_KEY, list);
+    withRollback(() -> list.add("b"));
+    assertEquals(Collections.singletonList("a"), visitor.getUserData(LIST_KEY));
+  }
+
+  @Test
+  public void mutatedUserDataAfterRollbackTest() {
+    visitor.putUserData(LIST_KEY, new ArrayList<>(Collections.singletonList("a")));
+    visitor.withCurrentState(tc -> {
+      visitor.getUserData(LIST_KEY).add("b");
+      tc.loadSavedState();
+      // The restored value can be modified and restored again
+      visitor.getUserData(LIST_KEY).add("c");
+      tc.loadSavedState();
+      return null;
+    });
+    assertEquals(Collections.singletonList("a"), visitor.getUserData(LIST_KEY));
+  }
+}
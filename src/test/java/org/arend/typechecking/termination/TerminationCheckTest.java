@@ -19,6 +19,7 @@ import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 
 public class TerminationCheckTest extends TypeCheckingTestCase {
@@ -335,6 +336,54 @@ public class TerminationCheckTest extends TypeCheckingTestCase {
     assert TestCallGraph.testTermination(cms);
   }
 
+  /*
+   * Generates a strongly connected component in the format of toTestScenario:
+   * a ring of vertices with identity call matrices and random chords which decrease the first parameter.
+   * If {@code decreasing} is true, the edge closing the ring also decreases the first parameter.
+   */
+  private static Set<BaseCallMatrix<TestVertex>> generateScc(int numberOfVertices, int numberOfParameters, int numberOfChords, boolean decreasing) {
+    String[] parameters = new String[numberOfParameters];
+    for (int i = 0; i < numberOfParameters; i++) {
+      parameters[i] = "x" + i;
+    }
+    TestVertex[] vertices = new TestVertex[numberOfVertices];
+    for (int i = 0; i < numberOfVertices; i++) {
+      vertices[i] = new TestVertex("f" + i, parameters);
+    }
+
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    for (int i = 0; i < numberOfVertices; i++) {
+      boolean isLast = i == numberOfVertices - 1;
+      cms.add(new TestCallMatrix("e" + i, vertices[i], vertices[(i + 1) % numberOfVertices], callMatrixData(numberOfParameters, isLast && decreasing)));
+    }
+    Random random = new Random(numberOfVertices * 31L + numberOfChords);
+    for (int i = 0; i < numberOfChords; i++) {
+      cms.add(new TestCallMatrix("c" + i, vertices[random.nextInt(numberOfVertices)], vertices[random.nextInt(numberOfVertices)], callMatrixData(numberOfParameters, true)));
+    }
+    return cms;
+  }
+
+  private static Object[] callMatrixData(int numberOfParameters, boolean decreasing) {
+    Object[] data = new Object[numberOfParameters * 2];
+    for (int i = 0; i < numberOfParameters; i++) {
+      data[2 * i] = i == 0 && decreasing ? '<' : '=';
+      data[2 * i + 1] = i;
+    }
+    return data;
+  }
+
+  @Test
+  public void largeSccTerminatingTest() {
+    assert TestCallGraph.testTermination(generateScc(60, 16, 120, true));
+  }
+
+  @Test
+  public void largeSccNonTerminatingTest() {
+    TestCallGraph graph = new TestCallGraph(generateScc(40, 3, 40, false));
+    assert !graph.checkTermination();
+    assert !graph.myErrorInfo.isEmpty();
+  }
+
   @Test
   public void factorialTest() {
     typeCheckModule(
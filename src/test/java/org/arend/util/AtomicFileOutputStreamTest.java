@@ -0,0 +1,64 @@
+package org.arend.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class AtomicFileOutputStreamTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static class FailingStream extends FilterOutputStream {
+    FailingStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      throw new IOException("Write failed");
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      throw new IOException("Write failed");
+    }
+  }
+
+  @Test
+  public void successfulWrite() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("file");
+    Files.write(file, "old".getBytes(StandardCharsets.UTF_8));
+    try (OutputStream stream = new AtomicFileOutputStream(file)) {
+      stream.write("new".getBytes(StandardCharsets.UTF_8));
+    }
+    assertEquals("new", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    assertFalse(Files.exists(file.resolveSibling("file.tmp")));
+  }
+
+  @Test
+  public void failedWrite() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("file");
+    Files.write(file, "old".getBytes(StandardCharsets.UTF_8));
+    AtomicFileOutputStream stream = new AtomicFileOutputStream(file) {{
+      out = new FailingStream(out);
+    }};
+    try {
+      stream.write("new".getBytes(StandardCharsets.UTF_8));
+      fail();
+    } catch (IOException e) {
+      assertEquals("Write failed", e.getMessage());
+    }
+    stream.close();
+    assertEquals("old", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    assertFalse(Files.exists(file.resolveSibling("file.tmp")));
+  }
+}